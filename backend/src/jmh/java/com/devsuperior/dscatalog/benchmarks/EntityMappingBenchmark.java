@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.UserDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.entities.Role;
+import com.devsuperior.dscatalog.entities.User;
+
+/**
+ * Custo de converter entidade em DTO, sem banco: ProductDTO(Product,
+ * Set<Category>) com as categorias e UserDTO(User) com os perfis, que é o que
+ * as listagens fazem para cada linha da página.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntityMappingBenchmark {
+
+	private Product product;
+	private User user;
+
+	@Setup
+	public void setUp() {
+		product = new Product(4L, "PC Gamer", "Lorem ipsum dolor sit amet, consectetur adipiscing elit", 1200.0,
+				"https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/4-big.jpg",
+				Instant.parse("2020-07-14T10:00:00Z"));
+		product.getCategories().add(new Category(2L, "Eletrônicos"));
+		product.getCategories().add(new Category(3L, "Computadores"));
+
+		user = new User(2L, "Maria", "Green", "maria@gmail.com", "$2a$10$eACCYoNOHEqXve8aIWT8Nu3PkMXWBaOxJ9aORUYzfMQCbVBIhZ8tG");
+		user.getRoles().add(new Role(1L, "ROLE_OPERATOR"));
+		user.getRoles().add(new Role(2L, "ROLE_ADMIN"));
+	}
+
+	@Benchmark
+	public ProductDTO productDto() {
+		return new ProductDTO(product);
+	}
+
+	@Benchmark
+	public ProductDTO productDtoWithCategories() {
+		return new ProductDTO(product, product.getCategories());
+	}
+
+	@Benchmark
+	public UserDTO userDto() {
+		return new UserDTO(user);
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Custo de serializar uma Page<ProductDTO> em JSON, como o
+ * MappingJackson2HttpMessageConverter faz na resposta de GET /products. O
+ * ObjectMapper é montado pelo Jackson2ObjectMapperBuilder, com os mesmos padrões
+ * do Spring Boot (datas ISO-8601, módulos do classpath).
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PageSerializationBenchmark {
+
+	@Param({ "12", "100", "1000" })
+	private int pageSize;
+
+	private ObjectMapper objectMapper;
+	private Page<ProductDTO> page;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+		List<ProductDTO> content = new ArrayList<>(pageSize);
+		for (long id = 1; id <= pageSize; id++) {
+			ProductDTO dto = new ProductDTO(id, "Produto " + id,
+					"Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore",
+					100.0 + id, "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/"
+							+ id + "-big.jpg",
+					Instant.parse("2020-07-14T10:00:00Z"));
+			dto.getCategories().add(new CategoryDTO(3L, "Computadores"));
+			content.add(dto);
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, pageSize, Sort.by("name")), 100_000);
+	}
+
+	@Benchmark
+	public byte[] writePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.devsuperior.dscatalog.DscatalogApplication;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.ProductService;
+
+/**
+ * ProductService.findAllPaged e findById contra o H2 em memória, com a aplicação
+ * inteira de pé (sem servidor web) e o catálogo do import.sql mais
+ * {@code products} produtos do DatasetGenerator (profile dataset, semente fixa).
+ * Cada chamada pede uma página ou um id sorteado, para não medir só o cache. Os
+ * ids são sorteados entre os que estão na tabela, lidos no setUp: o gerador
+ * continua a partir do maior id do banco, então não dá para supor 1..total.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+	private static final int PAGE_SIZE = 12;
+
+	@Param({ "10000" })
+	private int products;
+
+	private ConfigurableApplicationContext context;
+	private ProductService service;
+	private int pages;
+	private long[] ids;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(DscatalogApplication.class).web(WebApplicationType.NONE)
+				.profiles("test", "dataset")
+				.properties("logging.level.root=WARN", "dscatalog.dataset.products=" + products,
+						"dscatalog.dataset.users=100", "dscatalog.dataset.seed=42")
+				.run();
+		service = context.getBean(ProductService.class);
+
+		long total = service.findAllPaged(PageRequest.of(0, PAGE_SIZE)).getTotalElements();
+		pages = (int) (total / PAGE_SIZE);
+		ids = context.getBean(JdbcTemplate.class)
+				.queryForList("SELECT id FROM tb_product ORDER BY id", Long.class).stream()
+				.mapToLong(Long::longValue).toArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<ProductDTO> findAllPaged() {
+		int page = ThreadLocalRandom.current().nextInt(pages);
+		return service.findAllPaged(PageRequest.of(page, PAGE_SIZE, Sort.by("name")));
+	}
+
+	@Benchmark
+	public ProductDTO findById() {
+		return service.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+	}
+
+}
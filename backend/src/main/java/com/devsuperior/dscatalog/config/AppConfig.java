@@ -1,17 +1,27 @@
 package com.devsuperior.dscatalog.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import com.devsuperior.dscatalog.services.PasswordHasher;
+
 @Configuration
 public class AppConfig {
 
 	@Bean
 	/**é um componete do spring. Com o bean eu estou dizendo que essa instância do BCryter
-	será um componente gerenciado pelo springboot, ai poderei injetar esse cara em outros componentes.**/
-	public BCryptPasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	será um componente gerenciado pelo springboot, ai poderei injetar esse cara em outros componentes.
+	O custo do BCrypt não é fixo: na subida é escolhido o maior custo que gera um hash dentro do
+	dscatalog.password.hash-target nesta máquina (ver PasswordHasher.calibrate). Hashes antigos
+	continuam válidos, porque o custo fica gravado em cada hash.**/
+	public BCryptPasswordEncoder passwordEncoder(@Value("${dscatalog.password.hash-target:250ms}") Duration target,
+			@Value("${dscatalog.password.min-cost:10}") int minCost,
+			@Value("${dscatalog.password.max-cost:14}") int maxCost) {
+		return new BCryptPasswordEncoder(PasswordHasher.calibrate(target, minCost, maxCost));
 	}
 	
 	
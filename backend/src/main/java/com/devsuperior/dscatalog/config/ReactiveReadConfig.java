@@ -0,0 +1,132 @@
+package com.devsuperior.dscatalog.config;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import java.time.Duration;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.devsuperior.dscatalog.repositories.ReactiveCatalogRepository;
+import com.devsuperior.dscatalog.resources.ReactiveCatalogHandler;
+import com.devsuperior.dscatalog.services.ProductSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Pilha de leitura reativa, separada da API servlet: um servidor Netty na porta
+ * dscatalog.reactive.port com GET /products, GET /products/search, GET
+ * /products/{id} e GET /categories, lendo o banco por R2DBC. Nenhuma thread fica bloqueada esperando o
+ * JDBC, então uma rajada de leituras lentas não esgota as threads do Tomcat, que
+ * continuam atendendo as gravações (ProductService/JPA).
+ *
+ * Ligada com dscatalog.reactive.enabled=true. O pool R2DBC é criado aqui e não
+ * é um bean: um ConnectionFactory no contexto desliga a auto-configuração do
+ * DataSource (e com ela o JPA) e faria o Spring Boot criar um segundo
+ * gerenciador de transação ao lado do JPA (a auto-configuração do R2DBC também
+ * está desligada no application.properties).
+ **/
+@Configuration
+@ConditionalOnProperty(name = "dscatalog.reactive.enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+	private ConnectionPool pool;
+
+	/**
+	 * O R2DBC lê o mesmo banco da API servlet: a URL, o usuário e a senha vêm do
+	 * spring.datasource (r2dbcUrl traduz a URL JDBC). Para apontar para outro
+	 * endereço (uma réplica de leitura, por exemplo) basta informar
+	 * dscatalog.reactive.r2dbc-url; o usuário e a senha continuam os do datasource.
+	 **/
+	@Bean
+	public ReactiveCatalogRepository reactiveCatalogRepository(DataSourceProperties dataSource,
+			@Value("${dscatalog.reactive.r2dbc-url:}") String url,
+			@Value("${dscatalog.reactive.pool-size:10}") int poolSize) {
+
+		ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions
+				.parse(url.isBlank() ? r2dbcUrl(dataSource.determineUrl()) : url).mutate();
+		String username = dataSource.determineUsername();
+		if (username != null) {
+			options.option(ConnectionFactoryOptions.USER, username);
+		}
+		String password = dataSource.determinePassword();
+		if (password != null) {
+			options.option(ConnectionFactoryOptions.PASSWORD, password);
+		}
+
+		pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+				.initialSize(1).maxSize(poolSize).maxIdleTime(Duration.ofMinutes(30)).build());
+		return new ReactiveCatalogRepository(DatabaseClient.create(pool));
+	}
+
+	@PreDestroy
+	void disposePool() {
+		if (pool != null) {
+			pool.dispose();
+		}
+	}
+
+	/**
+	 * URL JDBC -> URL R2DBC, para os bancos que o projeto tem driver R2DBC (H2 e
+	 * PostgreSQL). As opções do H2 depois do ";" viram o parâmetro options.
+	 **/
+	static String r2dbcUrl(String jdbcUrl) {
+		if (jdbcUrl == null) {
+			throw new IllegalStateException("spring.datasource.url não definida; informe dscatalog.reactive.r2dbc-url");
+		}
+		if (jdbcUrl.startsWith("jdbc:h2:mem:") || jdbcUrl.startsWith("jdbc:h2:file:")) {
+			String type = jdbcUrl.startsWith("jdbc:h2:mem:") ? "mem" : "file";
+			String rest = jdbcUrl.substring(("jdbc:h2:" + type + ":").length());
+			int semicolon = rest.indexOf(';');
+			String name = semicolon < 0 ? rest : rest.substring(0, semicolon);
+			String url = "r2dbc:h2:" + type + ":///" + name;
+			return semicolon < 0 ? url : url + "?options=" + rest.substring(semicolon + 1);
+		}
+		if (jdbcUrl.startsWith("jdbc:postgresql:")) {
+			return "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+		}
+		throw new IllegalStateException("Não é possível derivar a URL R2DBC de " + jdbcUrl
+				+ "; informe dscatalog.reactive.r2dbc-url");
+	}
+
+	@Bean(destroyMethod = "disposeNow")
+	public DisposableServer reactiveReadServer(ReactiveCatalogRepository repository, ProductSearchIndex searchIndex,
+			ObjectMapper objectMapper, @Value("${dscatalog.reactive.port:8081}") int port) {
+		ReactiveCatalogHandler handler = new ReactiveCatalogHandler(repository, searchIndex);
+		RouterFunction<ServerResponse> router = route(GET("/products"), handler::findProducts)
+				.andRoute(GET("/products/search"), handler::searchProducts)
+				.andRoute(GET("/products/{id}"), handler::findProductById)
+				.andRoute(GET("/categories"), handler::findCategories);
+
+		/** Mesmo ObjectMapper da API servlet, para o JSON sair igual (datas, nulos etc.) **/
+		HandlerStrategies strategies = HandlerStrategies.builder().codecs(codecs -> {
+			codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+			codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+		}).build();
+
+		HttpHandler httpHandler = RouterFunctions.toHttpHandler(router, strategies);
+		return HttpServer.create().port(port).handle(new ReactorHttpHandlerAdapter(httpHandler)).bindNow();
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.devsuperior.dscatalog.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactoryCustomizer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A métrica spring.data.repository.invocations, no lugar da
+ * RepositoryMetricsAutoConfiguration (excluída no application.properties). A do
+ * Spring Boot 2.5.0 registra um BeanPostProcessor que recebe o listener pronto,
+ * e com ele o MeterRegistry: o registry nascia antes do
+ * MeterRegistryPostProcessor e ficava sem os filtros, ou seja, sem a tag
+ * application e sem os histogramas do application.properties. Aqui o listener
+ * só é buscado quando o primeiro repository é criado, como no Spring Boot
+ * 2.5.1.
+ **/
+@Configuration
+public class RepositoryMetricsConfig {
+
+	@Bean
+	public DefaultRepositoryTagsProvider repositoryTagsProvider() {
+		return new DefaultRepositoryTagsProvider();
+	}
+
+	@Bean
+	public MetricsRepositoryMethodInvocationListener metricsRepositoryMethodInvocationListener(
+			MetricsProperties properties, MeterRegistry meterRegistry, RepositoryTagsProvider tagsProvider) {
+		MetricsProperties.Data.Repository repository = properties.getData().getRepository();
+		return new MetricsRepositoryMethodInvocationListener(meterRegistry, tagsProvider, repository.getMetricName(),
+				repository.getAutotime());
+	}
+
+	@Bean
+	public static BeanPostProcessor metricsRepositoryMethodInvocationListenerPostProcessor(
+			ObjectProvider<MetricsRepositoryMethodInvocationListener> listener) {
+		RepositoryFactoryCustomizer customizer = factory -> factory.addInvocationListener(listener.getObject());
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport) {
+					((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(customizer);
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.devsuperior.dscatalog.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Medição por requisição (RequestTimings): comandos SQL, tempo no banco, no
+ * serviço e no JSON, no cabeçalho Server-Timing e nas métricas
+ * dscatalog.request.*. Ligada por padrão; dscatalog.request-timing.enabled=false
+ * desliga (o listener do Hibernate continua registrado, mas sem RequestTimings
+ * aberto ele não faz nada).
+ **/
+@Configuration
+@ConditionalOnProperty(name = "dscatalog.request-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingConfig {
+
+	/** Primeiro filtro da cadeia, para medir também o filtro de segurança **/
+	@Bean
+	public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(MeterRegistry meterRegistry) {
+		FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(
+				new RequestTimingFilter(meterRegistry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	/** Substitui o conversor JSON do Spring Boot (que só é criado se não houver outro) **/
+	@Bean
+	public TimedJsonMessageConverter timedJsonMessageConverter(ObjectMapper objectMapper) {
+		return new TimedJsonMessageConverter(objectMapper);
+	}
+
+}
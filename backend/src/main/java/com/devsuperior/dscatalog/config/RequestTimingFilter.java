@@ -0,0 +1,63 @@
+package com.devsuperior.dscatalog.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Abre o RequestTimings no começo da requisição e, no fim, registra as métricas
+ * por endpoint (tags method e uri, com o padrão do mapeamento, ex.
+ * /products/{id}): dscatalog.request.statements (comandos SQL por requisição),
+ * dscatalog.request.time (tag segment=db, app ou json) e
+ * dscatalog.request.json.size (bytes do JSON). Respostas com corpo JSON recebem
+ * o Server-Timing do TimedJsonMessageConverter; as outras (204, 304...) recebem
+ * aqui, se a resposta ainda não foi enviada.
+ **/
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry meterRegistry;
+
+	public RequestTimingFilter(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		RequestTimings timings = RequestTimings.start();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			RequestTimings.clear();
+			if (!response.isCommitted() && !response.containsHeader(RequestTimings.HEADER)) {
+				response.setHeader(RequestTimings.HEADER, timings.serverTiming());
+			}
+			record(request, timings);
+		}
+	}
+
+	private void record(HttpServletRequest request, RequestTimings timings) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+
+		meterRegistry.summary("dscatalog.request.statements", tags).record(timings.getStatements());
+		meterRegistry.timer("dscatalog.request.time", tags.and("segment", "db"))
+				.record(timings.getDatabaseNanos(), TimeUnit.NANOSECONDS);
+		meterRegistry.timer("dscatalog.request.time", tags.and("segment", "app"))
+				.record(timings.getApplicationNanos(), TimeUnit.NANOSECONDS);
+		meterRegistry.timer("dscatalog.request.time", tags.and("segment", "json"))
+				.record(timings.getSerializationNanos(), TimeUnit.NANOSECONDS);
+		meterRegistry.summary("dscatalog.request.json.size", tags).record(timings.getSerializedBytes());
+	}
+
+}
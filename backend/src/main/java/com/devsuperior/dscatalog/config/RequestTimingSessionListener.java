@@ -0,0 +1,46 @@
+package com.devsuperior.dscatalog.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Listener de sessão do Hibernate (hibernate.session.events.auto) que conta os
+ * comandos SQL e o tempo de cada execução no RequestTimings da requisição. Um
+ * lote JDBC conta como um comando, porque é uma ida só ao banco. O Hibernate
+ * cria um listener por sessão, então os campos não são compartilhados entre
+ * threads.
+ **/
+public class RequestTimingSessionListener extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private long statementStart;
+	private long batchStart;
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		statementStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		record(statementStart);
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		batchStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		record(batchStart);
+	}
+
+	private static void record(long start) {
+		RequestTimings timings = RequestTimings.current();
+		if (timings != null) {
+			timings.statementExecuted(System.nanoTime() - start);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.devsuperior.dscatalog.config;
+
+/**
+ * Onde foi o tempo de uma requisição: quantos comandos SQL ela executou e quanto
+ * tempo passou no banco (db), no resto do handler até a resposta começar a ser
+ * escrita (app: montar os DTOs e toda a lógica do serviço e do resource fora do
+ * banco) e serializando o JSON da resposta (json). O db e o app vão no
+ * cabeçalho Server-Timing; os três, e o tamanho do JSON, vão nas métricas
+ * dscatalog.request.* (RequestTimingFilter).
+ *
+ * Fica num ThreadLocal durante a requisição, e quem mede (o listener do
+ * Hibernate e o conversor JSON) só soma números nele: nenhuma alocação nem
+ * sincronização por comando SQL.
+ **/
+public final class RequestTimings {
+
+	public static final String HEADER = "Server-Timing";
+
+	private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+	private final long startedAt = System.nanoTime();
+	private long handlerEndedAt;
+	private int statements;
+	private long databaseNanos;
+	private long serializationNanos;
+	private long serializedBytes;
+
+	private RequestTimings() {
+	}
+
+	static RequestTimings start() {
+		RequestTimings timings = new RequestTimings();
+		CURRENT.set(timings);
+		return timings;
+	}
+
+	/** As medições da requisição desta thread, ou null fora de uma requisição (jobs, thread do export) **/
+	static RequestTimings current() {
+		return CURRENT.get();
+	}
+
+	static void clear() {
+		CURRENT.remove();
+	}
+
+	void statementExecuted(long nanos) {
+		statements++;
+		databaseNanos += nanos;
+	}
+
+	/** Chamado quando a resposta começa a ser serializada: daí pra frente o tempo é do JSON, não do serviço **/
+	void serializationStarted() {
+		if (handlerEndedAt == 0) {
+			handlerEndedAt = System.nanoTime();
+		}
+	}
+
+	void serialized(long nanos, long bytes) {
+		serializationNanos += nanos;
+		serializedBytes += bytes;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public long getDatabaseNanos() {
+		return databaseNanos;
+	}
+
+	/** Tempo do handler fora do banco, até a serialização começar (ou até agora, se a resposta não tem corpo JSON) **/
+	public long getApplicationNanos() {
+		long end = handlerEndedAt != 0 ? handlerEndedAt : System.nanoTime();
+		return Math.max(0, end - startedAt - databaseNanos);
+	}
+
+	public long getSerializationNanos() {
+		return serializationNanos;
+	}
+
+	public long getSerializedBytes() {
+		return serializedBytes;
+	}
+
+	/**
+	 * Ex.: db;dur=3.21;desc="12 statements", app;dur=0.85. O json não entra: o
+	 * cabeçalho sai antes do corpo, quando a serialização ainda não aconteceu.
+	 **/
+	String serverTiming() {
+		StringBuilder header = new StringBuilder(64);
+		appendMetric(header, "db", databaseNanos).append(";desc=\"").append(statements).append(" statements\", ");
+		return appendMetric(header, "app", getApplicationNanos()).toString();
+	}
+
+	/** Milissegundos com duas casas, sem String.format (que custaria mais que a medição inteira) **/
+	private static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+		long hundredths = nanos / 10_000;
+		header.append(name).append(";dur=").append(hundredths / 100).append('.');
+		long fraction = hundredths % 100;
+		return header.append(fraction < 10 ? "0" : "").append(fraction);
+	}
+
+}
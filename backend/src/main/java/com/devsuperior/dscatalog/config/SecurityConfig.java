@@ -1,16 +1,59 @@
 package com.devsuperior.dscatalog.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.devsuperior.dscatalog.services.TokenService;
+
+/**
+ * Com dscatalog.security.enabled=false (padrão) tudo continua liberado, como
+ * antes. Ligado, a autenticação é sem estado (sem sessão) pelo token do
+ * TokenAuthenticationFilter: leitura do catálogo e login são públicos, /users e
+ * o slow-query log são só para ROLE_ADMIN e as demais gravações para
+ * ROLE_OPERATOR ou ROLE_ADMIN. O console do H2 (/h2-console, só no perfil
+ * test) fica bloqueado para todos: é um console SQL completo, e o navegador
+ * dele não manda o token.
+ **/
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+	@Value("${dscatalog.security.enabled:false}")
+	private boolean enabled;
+
+	@Autowired
+	private TokenService tokenService;
+
 	@Override
 	public void configure(WebSecurity web) throws Exception {
-		web.ignoring().antMatchers("/**");
+		if (!enabled) {
+			web.ignoring().antMatchers("/**");
+		}
+	}
+
+	@Override
+	protected void configure(HttpSecurity http) throws Exception {
+		http.csrf().disable().httpBasic().disable().formLogin().disable().logout().disable()
+				.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+				.exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)).and()
+				.addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+				.authorizeRequests()
+				.antMatchers(HttpMethod.POST, "/auth/token").permitAll()
+				.antMatchers("/actuator/health").permitAll()
+				.antMatchers("/h2-console/**").denyAll()
+				.antMatchers("/actuator/slowqueries/**").hasRole("ADMIN")
+				.antMatchers(HttpMethod.GET, "/products/**", "/categories/**").permitAll()
+				.antMatchers("/users/**").hasRole("ADMIN")
+				.anyRequest().hasAnyRole("OPERATOR", "ADMIN");
 	}
 }
@@ -0,0 +1,48 @@
+package com.devsuperior.dscatalog.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latência de cada método público do ProductService, CategoryServices e
+ * UserService, na métrica dscatalog.service (tags class, method e exception). O
+ * histograma para o Prometheus é ligado no application.properties
+ * (management.metrics.distribution.percentiles-histogram.dscatalog.service).
+ * Chamadas de um método do serviço para outro do mesmo serviço não passam pelo
+ * proxy, então só a chamada de fora é medida.
+ **/
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+	private static final String METRIC = "dscatalog.service";
+
+	private final MeterRegistry meterRegistry;
+
+	public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("execution(public * com.devsuperior.dscatalog.services.ProductService.*(..))"
+			+ " || execution(public * com.devsuperior.dscatalog.services.CategoryServices.*(..))"
+			+ " || execution(public * com.devsuperior.dscatalog.services.UserService.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(meterRegistry.timer(METRIC, "class", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+					"method", joinPoint.getSignature().getName(), "exception", exception));
+		}
+	}
+
+}
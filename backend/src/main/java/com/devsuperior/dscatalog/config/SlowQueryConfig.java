@@ -0,0 +1,54 @@
+package com.devsuperior.dscatalog.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Liga o slow-query log: todo DataSource da aplicação passa a ser um
+ * SlowQueryDataSource. Desligado por padrão, e só sobe junto com a segurança
+ * (dscatalog.slow-query.enabled e dscatalog.security.enabled), para o
+ * /actuator/slowqueries nunca ficar aberto. Os beans são static porque o
+ * BeanPostProcessor precisa existir antes dos outros beans serem criados; o
+ * DataSourceProperties do EXPLAIN vem por ObjectProvider, só no primeiro uso.
+ **/
+@Configuration
+@ConditionalOnProperty(prefix = "dscatalog", name = { "slow-query.enabled", "security.enabled" }, havingValue = "true")
+public class SlowQueryConfig {
+
+	@Bean
+	public static SlowQueryLog slowQueryLog(@Value("${dscatalog.slow-query.threshold:200ms}") Duration threshold,
+			@Value("${dscatalog.slow-query.capacity:100}") int capacity,
+			@Value("${dscatalog.slow-query.binds:false}") boolean binds,
+			@Value("${dscatalog.slow-query.explain:true}") boolean explain,
+			ObjectProvider<DataSourceProperties> dataSourceProperties) {
+		return new SlowQueryLog(threshold, capacity, binds, explain, dataSourceProperties);
+	}
+
+	@Bean
+	public static BeanPostProcessor slowQueryDataSourcePostProcessor(SlowQueryLog slowQueryLog) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof SlowQueryDataSource)) {
+					return new SlowQueryDataSource((DataSource) bean, slowQueryLog);
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+		return new SlowQueryEndpoint(slowQueryLog);
+	}
+
+}
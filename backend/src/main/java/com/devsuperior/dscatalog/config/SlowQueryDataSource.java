@@ -0,0 +1,38 @@
+package com.devsuperior.dscatalog.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que mede cada execução de comando SQL (execute*, inclusive lotes)
+ * e entrega ao SlowQueryLog as que passaram do limite. As conexões e os
+ * statements são embrulhados em classes que só repassam as chamadas
+ * (SlowQueryConnection, SlowQueryStatement, SlowQueryPreparedStatement), sem
+ * proxy dinâmico nem reflexão: o caminho normal custa um nanoTime antes e
+ * depois da execução e uma comparação com o limite. Nada é copiado dos
+ * parâmetros enquanto a consulta não for lenta.
+ **/
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+	private final SlowQueryLog log;
+
+	public SlowQueryDataSource(DataSource target, SlowQueryLog log) {
+		super(target);
+		this.log = log;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return new SlowQueryConnection(obtainTargetDataSource().getConnection(), log);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return new SlowQueryConnection(obtainTargetDataSource().getConnection(username, password), log);
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.devsuperior.dscatalog.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.devsuperior.dscatalog.dto.SlowQueryDTO;
+
+/**
+ * GET /actuator/slowqueries devolve o slow-query log, do mais recente para o
+ * mais antigo; DELETE esvazia. Só existe com a segurança ligada
+ * (SlowQueryConfig), e só ROLE_ADMIN acessa: o SQL e os parâmetros mostram
+ * dados do catálogo e de quem o usa.
+ **/
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+	private final SlowQueryLog log;
+
+	public SlowQueryEndpoint(SlowQueryLog log) {
+		this.log = log;
+	}
+
+	@ReadOperation
+	public List<SlowQueryDTO> slowQueries() {
+		return log.findAll();
+	}
+
+	@DeleteOperation
+	public void clear() {
+		log.clear();
+	}
+
+}
@@ -0,0 +1,265 @@
+package com.devsuperior.dscatalog.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.devsuperior.dscatalog.dto.SlowQueryDTO;
+
+/**
+ * Slow-query log em memória: os últimos dscatalog.slow-query.capacity comandos
+ * SQL que demoraram dscatalog.slow-query.threshold ou mais, com o método de
+ * serviço que chamou e o EXPLAIN. Quem mede é o SlowQueryDataSource; quem
+ * serve é o SlowQueryEndpoint (/actuator/slowqueries).
+ *
+ * O buffer é circular e sem lock: cada registro pega a próxima posição com um
+ * AtomicLong e grava com um set no AtomicReferenceArray, sobrescrevendo o mais
+ * antigo. O EXPLAIN também é entregue sem lock: a entrada vai para uma
+ * ConcurrentLinkedQueue limitada por um AtomicInteger (cheia, o plano é
+ * descartado) e a thread do explainer é acordada com LockSupport.unpark.
+ * Nenhuma thread espera outra, nem com muitas consultas lentas ao mesmo tempo.
+ *
+ * Os parâmetros só entram com dscatalog.slow-query.binds=true, e nunca os dos
+ * comandos na tb_user (emails e hashes de senha). São os valores que passaram
+ * pelos set* do SlowQueryPreparedStatement, então não dependem do driver. O
+ * EXPLAIN roda numa thread própria e numa conexão só dela, aberta fora do
+ * pool: não soma tempo à requisição que já foi lenta nem disputa conexão com
+ * ela.
+ **/
+public class SlowQueryLog implements DisposableBean {
+
+	private static final String SERVICES = "com.devsuperior.dscatalog.services.";
+	private static final String USER_TABLE = "tb_user";
+	private static final int MAX_BINDS_LENGTH = 1000;
+	private static final StackWalker WALKER = StackWalker.getInstance();
+
+	private final AtomicReferenceArray<SlowQueryDTO> entries;
+	private final AtomicLong sequence = new AtomicLong();
+	private final long thresholdNanos;
+	private final boolean binds;
+	private final boolean explain;
+	private final ObjectProvider<DataSourceProperties> dataSourceProperties;
+	private final int explainCapacity;
+	private final Queue<SlowQueryDTO> pendingPlans = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final Thread explainer;
+	private volatile boolean stopped;
+
+	/** Só a thread do explainer usa (e o destroy, depois de parar a thread) **/
+	private Connection explainConnection;
+
+	public SlowQueryLog(Duration threshold, int capacity, boolean binds, boolean explain,
+			ObjectProvider<DataSourceProperties> dataSourceProperties) {
+		this.entries = new AtomicReferenceArray<>(capacity);
+		this.thresholdNanos = threshold.toNanos();
+		this.binds = binds;
+		this.explain = explain;
+		this.dataSourceProperties = dataSourceProperties;
+		this.explainCapacity = capacity;
+		this.explainer = new Thread(this::explainPending, "slow-query-explain");
+		this.explainer.setDaemon(true);
+		if (explain) {
+			this.explainer.start();
+		}
+	}
+
+	public boolean isSlow(long nanos) {
+		return nanos >= thresholdNanos;
+	}
+
+	/** Se o SlowQueryPreparedStatement deve guardar os valores dos set* **/
+	boolean capturesBinds() {
+		return binds;
+	}
+
+	/**
+	 * Só é chamado para comandos lentos, então aqui pode custar mais: formata os
+	 * parâmetros e percorre a pilha atrás do método de serviço. values são os
+	 * parâmetros guardados pelo SlowQueryPreparedStatement (índice 0 é o
+	 * parâmetro 1), ou null num Statement, num lote ou com binds desligado;
+	 * batchSize é o número de comandos do lote, 0 fora de lote.
+	 **/
+	void record(String sql, Object[] values, long nanos, int batchSize) {
+		SlowQueryDTO entry = new SlowQueryDTO(Instant.now(), nanos / 1_000_000.0, sql, binds(sql, values), batchSize,
+				caller());
+		entries.set((int) (sequence.getAndIncrement() % entries.length()), entry);
+
+		if (explain && batchSize == 0 && isSelect(sql)) {
+			if (pendingCount.incrementAndGet() > explainCapacity) {
+				pendingCount.decrementAndGet();
+				return;
+			}
+			pendingPlans.offer(entry);
+			LockSupport.unpark(explainer);
+		}
+	}
+
+	/** Do mais recente para o mais antigo **/
+	public List<SlowQueryDTO> findAll() {
+		List<SlowQueryDTO> result = new ArrayList<>(entries.length());
+		long last = sequence.get() - 1;
+		for (long i = last; i >= 0 && i > last - entries.length(); i--) {
+			SlowQueryDTO entry = entries.get((int) (i % entries.length()));
+			if (entry != null) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	public void clear() {
+		for (int i = 0; i < entries.length(); i++) {
+			entries.set(i, null);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		stopped = true;
+		LockSupport.unpark(explainer);
+		if (explainer.isAlive()) {
+			explainer.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		closeExplainConnection();
+	}
+
+	/**
+	 * Laço da thread do explainer: esvazia a fila e dorme no park até o próximo
+	 * unpark do record (um unpark antes do park não se perde, o park volta na
+	 * hora).
+	 **/
+	private void explainPending() {
+		while (!stopped) {
+			SlowQueryDTO entry = pendingPlans.poll();
+			if (entry == null) {
+				LockSupport.park(this);
+				continue;
+			}
+			pendingCount.decrementAndGet();
+			entry.setPlan(explain(entry.getSql()));
+		}
+	}
+
+	/**
+	 * Os parâmetros no formato "{1: 5, 2: 'x', 3: NULL, 4: [InputStream]}": texto
+	 * entre aspas, e só o tipo dos streams e LOBs, que não foram lidos.
+	 **/
+	private String binds(String sql, Object[] values) {
+		if (!binds || values == null) {
+			return null;
+		}
+		if (sql != null && sql.toLowerCase(Locale.ROOT).contains(USER_TABLE)) {
+			return "[omitidos: " + USER_TABLE + "]";
+		}
+		StringBuilder text = new StringBuilder("{");
+		for (int i = 0; i < values.length && text.length() <= MAX_BINDS_LENGTH; i++) {
+			Object value = values[i];
+			text.append(i == 0 ? "" : ", ").append(i + 1).append(": ");
+			if (value == null) {
+				text.append("NULL");
+			} else if (value instanceof Class) {
+				text.append('[').append(((Class<?>) value).getSimpleName()).append(']');
+			} else if (value instanceof CharSequence) {
+				text.append('\'').append(value).append('\'');
+			} else {
+				text.append(value);
+			}
+		}
+		text.append('}');
+		return text.length() > MAX_BINDS_LENGTH ? text.substring(0, MAX_BINDS_LENGTH) + "..." : text.toString();
+	}
+
+	/**
+	 * Roda na thread do explainer. Com binds desligado os valores nem são
+	 * guardados, então os parâmetros vão sempre nulos: o H2 escolhe os índices na preparação, e o plano é o
+	 * mesmo; no PostgreSQL o plano genérico pode diferir do que rodou.
+	 **/
+	private String explain(String sql) {
+		try {
+			Connection conn = explainConnection();
+			try (PreparedStatement statement = conn.prepareStatement("EXPLAIN " + sql)) {
+				int parameters = statement.getParameterMetaData().getParameterCount();
+				for (int i = 1; i <= parameters; i++) {
+					statement.setNull(i, Types.NULL);
+				}
+				StringBuilder plan = new StringBuilder();
+				try (ResultSet result = statement.executeQuery()) {
+					while (result.next()) {
+						plan.append(plan.length() == 0 ? "" : "\n").append(result.getString(1));
+					}
+				}
+				return plan.toString();
+			}
+		} catch (SQLException e) {
+			return "EXPLAIN falhou: " + e.getMessage();
+		}
+	}
+
+	/** Uma conexão direta no driver, com a URL e o usuário do spring.datasource, reaberta se cair **/
+	private Connection explainConnection() throws SQLException {
+		if (explainConnection == null || !explainConnection.isValid(1)) {
+			closeExplainConnection();
+			DataSource direct = dataSourceProperties.getObject().initializeDataSourceBuilder()
+					.type(SimpleDriverDataSource.class).build();
+			explainConnection = direct.getConnection();
+			explainConnection.setReadOnly(true);
+		}
+		return explainConnection;
+	}
+
+	private void closeExplainConnection() {
+		if (explainConnection != null) {
+			try {
+				explainConnection.close();
+			} catch (SQLException e) {
+				// já estava fechada ou caiu; o destroy e a reabertura não têm o que fazer
+			}
+			explainConnection = null;
+		}
+	}
+
+	/**
+	 * O método de serviço mais externo da pilha, ex. ProductService.findAllPaged.
+	 * O mais externo é o do proxy do Spring (ProductService$$EnhancerBySpringCGLIB),
+	 * que é o método chamado pelo resource, e também é onde acontece o flush do
+	 * commit; o sufixo do proxy é cortado.
+	 **/
+	private static String caller() {
+		return WALKER.walk(frames -> frames.filter(frame -> frame.getClassName().startsWith(SERVICES))
+				.reduce((inner, outer) -> outer)
+				.map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+				.orElse("desconhecido"));
+	}
+
+	private static String simpleName(String className) {
+		String name = className.substring(SERVICES.length());
+		int proxy = name.indexOf("$$");
+		return proxy < 0 ? name : name.substring(0, proxy);
+	}
+
+	private static boolean isSelect(String sql) {
+		return sql != null && sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+	}
+
+}
@@ -0,0 +1,425 @@
+package com.devsuperior.dscatalog.config;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * PreparedStatement do SlowQueryDataSource. Os set* vão ao statement do pool e,
+ * só com dscatalog.slow-query.binds=true, o valor também fica num array do
+ * wrapper, indexado pelo parâmetro, para o SlowQueryLog mostrar se a execução
+ * passar do limite. Assim funciona com qualquer driver, sem depender do
+ * toString do statement. Streams e LOBs não são lidos: fica só o tipo. Com
+ * binds desligado o array nem é criado.
+ **/
+class SlowQueryPreparedStatement extends SlowQueryStatement<PreparedStatement> implements PreparedStatement {
+
+	private final String sql;
+
+	/** Parâmetro i em values[i - 1]; null enquanto nenhum set* guardou valor **/
+	private Object[] values;
+
+	SlowQueryPreparedStatement(PreparedStatement target, String sql, Connection connection, SlowQueryLog log) {
+		super(target, connection, log);
+		this.sql = sql;
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		target.addBatch();
+		batched(sql);
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		target.clearParameters();
+		if (values != null) {
+			Arrays.fill(values, null);
+		}
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return target.execute();
+		} finally {
+			executed(sql, values, start);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return target.executeLargeUpdate();
+		} finally {
+			executed(sql, values, start);
+		}
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return target.executeQuery();
+		} finally {
+			executed(sql, values, start);
+		}
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return target.executeUpdate();
+		} finally {
+			executed(sql, values, start);
+		}
+	}
+
+	/** Um Class no lugar do valor é um parâmetro que não é lido (stream, LOB): o log mostra só o tipo **/
+	private void bind(int parameterIndex, Object value) {
+		if (!log.capturesBinds() || parameterIndex < 1) {
+			return;
+		}
+		if (values == null) {
+			values = new Object[parameterIndex];
+		} else if (parameterIndex > values.length) {
+			values = Arrays.copyOf(values, parameterIndex);
+		}
+		values[parameterIndex - 1] = value;
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return target.getMetaData();
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		return target.getParameterMetaData();
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		target.setArray(parameterIndex, x);
+		bind(parameterIndex, Array.class);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		target.setAsciiStream(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		target.setAsciiStream(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+		target.setAsciiStream(parameterIndex, x);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		target.setBigDecimal(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		target.setBinaryStream(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		target.setBinaryStream(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+		target.setBinaryStream(parameterIndex, x);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+		target.setBlob(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+		target.setBlob(parameterIndex, x);
+		bind(parameterIndex, InputStream.class);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		target.setBlob(parameterIndex, x);
+		bind(parameterIndex, Blob.class);
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		target.setBoolean(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		target.setByte(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		target.setBytes(parameterIndex, x);
+		bind(parameterIndex, byte[].class);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader x, int length) throws SQLException {
+		target.setCharacterStream(parameterIndex, x, length);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+		target.setCharacterStream(parameterIndex, x, length);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader x) throws SQLException {
+		target.setCharacterStream(parameterIndex, x);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader x, long length) throws SQLException {
+		target.setClob(parameterIndex, x, length);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader x) throws SQLException {
+		target.setClob(parameterIndex, x);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		target.setClob(parameterIndex, x);
+		bind(parameterIndex, Clob.class);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		target.setDate(parameterIndex, x, cal);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		target.setDate(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		target.setDouble(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		target.setFloat(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		target.setInt(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		target.setLong(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+		target.setNCharacterStream(parameterIndex, x, length);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader x) throws SQLException {
+		target.setNCharacterStream(parameterIndex, x);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader x, long length) throws SQLException {
+		target.setNClob(parameterIndex, x, length);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader x) throws SQLException {
+		target.setNClob(parameterIndex, x);
+		bind(parameterIndex, Reader.class);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob x) throws SQLException {
+		target.setNClob(parameterIndex, x);
+		bind(parameterIndex, NClob.class);
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String x) throws SQLException {
+		target.setNString(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		target.setNull(parameterIndex, sqlType, typeName);
+		bind(parameterIndex, null);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		target.setNull(parameterIndex, sqlType);
+		bind(parameterIndex, null);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		target.setObject(parameterIndex, x, targetSqlType);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+		target.setObject(parameterIndex, x, targetSqlType);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		target.setObject(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		target.setRef(parameterIndex, x);
+		bind(parameterIndex, Ref.class);
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		target.setRowId(parameterIndex, x);
+		bind(parameterIndex, RowId.class);
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+		target.setSQLXML(parameterIndex, x);
+		bind(parameterIndex, SQLXML.class);
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		target.setShort(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		target.setString(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		target.setTime(parameterIndex, x, cal);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		target.setTime(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		target.setTimestamp(parameterIndex, x, cal);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		target.setTimestamp(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	public void setURL(int parameterIndex, URL x) throws SQLException {
+		target.setURL(parameterIndex, x);
+		bind(parameterIndex, x);
+	}
+
+	@Override
+	@Deprecated
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		target.setUnicodeStream(parameterIndex, x, length);
+		bind(parameterIndex, InputStream.class);
+	}
+
+}
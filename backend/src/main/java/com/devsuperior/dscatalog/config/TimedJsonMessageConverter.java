@@ -0,0 +1,100 @@
+package com.devsuperior.dscatalog.config;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * O conversor JSON padrão, medindo o tempo da serialização e contando os bytes
+ * escritos. O JSON vai direto para a resposta, sem buffer: o cabeçalho
+ * Server-Timing (db e app) é gravado antes do corpo, e o tempo e o tamanho do
+ * JSON ficam no RequestTimings para as métricas. O tempo do json inclui a
+ * escrita no buffer de saída do Tomcat.
+ **/
+public class TimedJsonMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	public TimedJsonMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		RequestTimings timings = RequestTimings.current();
+		if (timings == null) {
+			super.writeInternal(object, type, outputMessage);
+			return;
+		}
+
+		timings.serializationStarted();
+		outputMessage.getHeaders().set(RequestTimings.HEADER, timings.serverTiming());
+
+		CountingMessage counting = new CountingMessage(outputMessage);
+		long start = System.nanoTime();
+		try {
+			super.writeInternal(object, type, counting);
+		} finally {
+			timings.serialized(System.nanoTime() - start, counting.bytes());
+		}
+	}
+
+	private static class CountingMessage implements HttpOutputMessage {
+
+		private final HttpOutputMessage target;
+		private CountingOutputStream body;
+
+		CountingMessage(HttpOutputMessage target) {
+			this.target = target;
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			if (body == null) {
+				body = new CountingOutputStream(target.getBody());
+			}
+			return body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return target.getHeaders();
+		}
+
+		long bytes() {
+			return body == null ? 0 : body.count;
+		}
+
+	}
+
+	/** Só soma os bytes e repassa: o Jackson escreve em blocos, então é uma soma por bloco **/
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.devsuperior.dscatalog.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.devsuperior.dscatalog.services.TokenService;
+
+/**
+ * Autentica a requisição pelo token do cabeçalho Authorization: Bearer. Os
+ * perfis vêm de dentro do token, então nenhuma requisição vai no banco buscar o
+ * usuário. Sem token, ou com token inválido/expirado, a requisição segue anônima
+ * e as regras do SecurityConfig decidem se ela pode passar.
+ **/
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final String BEARER = "Bearer ";
+
+	private final TokenService tokenService;
+
+	public TokenAuthenticationFilter(TokenService tokenService) {
+		this.tokenService = tokenService;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header != null && header.startsWith(BEARER)) {
+			tokenService.verify(header.substring(BEARER.length())).ifPresent(claims -> {
+				List<SimpleGrantedAuthority> authorities = claims.getAuthorities().stream()
+						.map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+				SecurityContextHolder.getContext().setAuthentication(
+						new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities));
+			});
+		}
+		chain.doFilter(request, response);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+/** Quantidade de produtos de uma categoria dentro do filtro atual **/
+public class CategoryFacetDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+	private String name;
+	private long count;
+
+	public CategoryFacetDTO() {
+	}
+
+	public CategoryFacetDTO(Long id, String name, long count) {
+		this.id = id;
+		this.name = name;
+		this.count = count;
+	}
+
+	public CategoryFacetDTO(CategoryFacetDTO other) {
+		this(other.id, other.name, other.count);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+}
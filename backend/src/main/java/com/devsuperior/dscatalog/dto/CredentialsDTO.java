@@ -0,0 +1,42 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+import javax.validation.constraints.NotBlank;
+
+/** Corpo do POST /auth/token **/
+public class CredentialsDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@NotBlank(message = "Campo obrigatório")
+	private String email;
+
+	@NotBlank(message = "Campo obrigatório")
+	private String password;
+
+	public CredentialsDTO() {
+	}
+
+	public CredentialsDTO(String email, String password) {
+		this.email = email;
+		this.password = password;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+}
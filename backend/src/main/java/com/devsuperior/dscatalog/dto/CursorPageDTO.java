@@ -0,0 +1,58 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Página da paginação por cursor (keyset). Diferente do Page do Spring, não
+ * possui número de página nem total de elementos, apenas o conteúdo e o cursor
+ * opaco que o cliente deve enviar no parâmetro "after" para buscar a próxima
+ * página. Quando nextCursor é nulo, não existem mais páginas.
+ **/
+public class CursorPageDTO<T> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<T> content = new ArrayList<>();
+	private int size;
+	private String nextCursor;
+
+	public CursorPageDTO() {
+	}
+
+	public CursorPageDTO(List<T> content, int size, String nextCursor) {
+		this.content = content;
+		this.size = size;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public void setContent(List<T> content) {
+		this.content = content;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+/** Faixa do histograma de preços: produtos com from <= preço < to **/
+public class PriceFacetDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Double from;
+	private Double to;
+	private long count;
+
+	public PriceFacetDTO() {
+	}
+
+	public PriceFacetDTO(Double from, Double to, long count) {
+		this.from = from;
+		this.to = to;
+		this.count = count;
+	}
+
+	public PriceFacetDTO(PriceFacetDTO other) {
+		this(other.from, other.to, other.count);
+	}
+
+	public Double getFrom() {
+		return from;
+	}
+
+	public void setFrom(Double from) {
+		this.from = from;
+	}
+
+	public Double getTo() {
+		return to;
+	}
+
+	public void setTo(Double to) {
+		this.to = to;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+}
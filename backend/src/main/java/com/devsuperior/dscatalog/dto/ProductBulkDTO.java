@@ -0,0 +1,58 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alteração em massa (POST /products/bulk): quais produtos (os mesmos filtros da
+ * listagem e/ou uma lista de ids) e o que fazer com eles, por exemplo
+ * {"categoryId": [2], "operation": "ADJUST_PRICE", "value": 5} para aumentar em
+ * 5% o preço de todos os Eletrônicos. Filtros e ids se combinam com AND.
+ *
+ * SET_PRICE troca o preço por value; ADJUST_PRICE aplica value por cento
+ * (negativo para desconto); DELETE apaga os produtos e ignora value.
+ **/
+public class ProductBulkDTO extends ProductFilterDTO {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Operation {
+		SET_PRICE, ADJUST_PRICE, DELETE
+	}
+
+	private List<Long> id = new ArrayList<>();
+	private Operation operation;
+	private Double value;
+
+	public ProductBulkDTO() {
+	}
+
+	public List<Long> getId() {
+		return id;
+	}
+
+	public void setId(List<Long> id) {
+		this.id = id == null ? new ArrayList<>() : id;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(Operation operation) {
+		this.operation = operation;
+	}
+
+	public Double getValue() {
+		return value;
+	}
+
+	public void setValue(Double value) {
+		this.value = value;
+	}
+
+	public boolean hasIds() {
+		return !id.isEmpty();
+	}
+
+}
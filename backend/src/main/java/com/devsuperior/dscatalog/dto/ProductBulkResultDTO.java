@@ -0,0 +1,39 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+import com.devsuperior.dscatalog.dto.ProductBulkDTO.Operation;
+
+/** Resultado de uma alteração em massa: a operação e quantos produtos ela alterou **/
+public class ProductBulkResultDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Operation operation;
+	private long affected;
+
+	public ProductBulkResultDTO() {
+	}
+
+	public ProductBulkResultDTO(Operation operation, long affected) {
+		this.operation = operation;
+		this.affected = affected;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(Operation operation) {
+		this.operation = operation;
+	}
+
+	public long getAffected() {
+		return affected;
+	}
+
+	public void setAffected(long affected) {
+		this.affected = affected;
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Contagens para a barra lateral do catálogo: total de produtos do filtro,
+ * quantos produtos existem em cada categoria e o histograma de preços.
+ **/
+public class ProductFacetsDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long total;
+	private List<CategoryFacetDTO> categories = new ArrayList<>();
+	private List<PriceFacetDTO> prices = new ArrayList<>();
+
+	public ProductFacetsDTO() {
+	}
+
+	public ProductFacetsDTO(long total, List<CategoryFacetDTO> categories, List<PriceFacetDTO> prices) {
+		this.total = total;
+		this.categories = categories;
+		this.prices = prices;
+	}
+
+	/** Cópia independente, inclusive dos itens das listas **/
+	public ProductFacetsDTO(ProductFacetsDTO other) {
+		this.total = other.total;
+		this.categories = other.categories.stream().map(CategoryFacetDTO::new).collect(Collectors.toList());
+		this.prices = other.prices.stream().map(PriceFacetDTO::new).collect(Collectors.toList());
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public List<CategoryFacetDTO> getCategories() {
+		return categories;
+	}
+
+	public void setCategories(List<CategoryFacetDTO> categories) {
+		this.categories = categories;
+	}
+
+	public List<PriceFacetDTO> getPrices() {
+		return prices;
+	}
+
+	public void setPrices(List<PriceFacetDTO> prices) {
+		this.prices = prices;
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Filtros da listagem de produtos. O Spring preenche esse objeto direto com os
+ * parâmetros da requisição (pelos setters), por exemplo:
+ * /products?categoryId=1,3&categoryMode=and&minPrice=100&maxPrice=2000
+ * &from=2020-07-01T00:00:00Z&to=2020-07-31T23:59:59Z
+ *
+ * categoryMode=or (padrão) traz os produtos que estão em qualquer uma das
+ * categorias; categoryMode=and só os que estão em todas elas. As faixas de
+ * preço e de data incluem os limites, e um limite não informado fica em aberto.
+ **/
+public class ProductFilterDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<Long> categoryId = new ArrayList<>();
+	private String categoryMode = "or";
+	private Double minPrice;
+	private Double maxPrice;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+	private Instant from;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+	private Instant to;
+
+	public ProductFilterDTO() {
+	}
+
+	public List<Long> getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(List<Long> categoryId) {
+		this.categoryId = categoryId == null ? new ArrayList<>() : categoryId;
+	}
+
+	public String getCategoryMode() {
+		return categoryMode;
+	}
+
+	public void setCategoryMode(String categoryMode) {
+		this.categoryMode = categoryMode;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(Double minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(Double maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public void setFrom(Instant from) {
+		this.from = from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	public void setTo(Instant to) {
+		this.to = to;
+	}
+
+	public boolean hasCategories() {
+		return !categoryId.isEmpty();
+	}
+
+	public boolean hasPriceRange() {
+		return minPrice != null || maxPrice != null;
+	}
+
+	public boolean hasDateRange() {
+		return from != null || to != null;
+	}
+
+	public boolean isMatchAllCategories() {
+		return "and".equalsIgnoreCase(categoryMode);
+	}
+
+	/** Verdadeiro quando nenhum filtro foi informado **/
+	public boolean isEmpty() {
+		return !hasCategories() && !hasPriceRange() && !hasDateRange();
+	}
+
+	/** Chave estável do filtro, usada por exemplo para guardar resultados em cache **/
+	public String toKey() {
+		return "categoryId=" + categoryId + ";categoryMode=" + (isMatchAllCategories() ? "and" : "or") + ";price="
+				+ minPrice + ".." + maxPrice + ";date=" + from + ".." + to;
+	}
+
+}
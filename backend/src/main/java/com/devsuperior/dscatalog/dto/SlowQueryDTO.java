@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Um comando SQL que passou do limite do slow-query log (SlowQueryLog): quando
+ * rodou, quanto demorou, o SQL, os parâmetros (só com
+ * dscatalog.slow-query.binds=true), o tamanho do lote (0 fora de lote; num lote
+ * os parâmetros não são guardados), o método de serviço que o disparou e o
+ * plano de execução. O plano é preenchido depois, por outra thread, então pode
+ * vir nulo logo após o registro.
+ **/
+public class SlowQueryDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Instant executedAt;
+	private final double durationMillis;
+	private final String sql;
+	private final String binds;
+	private final int batchSize;
+	private final String caller;
+	private volatile String plan;
+
+	public SlowQueryDTO(Instant executedAt, double durationMillis, String sql, String binds, int batchSize,
+			String caller) {
+		this.executedAt = executedAt;
+		this.durationMillis = durationMillis;
+		this.sql = sql;
+		this.binds = binds;
+		this.batchSize = batchSize;
+		this.caller = caller;
+	}
+
+	public Instant getExecutedAt() {
+		return executedAt;
+	}
+
+	public double getDurationMillis() {
+		return durationMillis;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public String getBinds() {
+		return binds;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public String getCaller() {
+		return caller;
+	}
+
+	public String getPlan() {
+		return plan;
+	}
+
+	public void setPlan(String plan) {
+		this.plan = plan;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+/** Resposta do POST /auth/token: o token e em quantos segundos ele expira **/
+public class TokenDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String accessToken;
+	private String tokenType = "Bearer";
+	private long expiresIn;
+
+	public TokenDTO() {
+	}
+
+	public TokenDTO(String accessToken, long expiresIn) {
+		this.accessToken = accessToken;
+		this.expiresIn = expiresIn;
+	}
+
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	public void setAccessToken(String accessToken) {
+		this.accessToken = accessToken;
+	}
+
+	public String getTokenType() {
+		return tokenType;
+	}
+
+	public void setTokenType(String tokenType) {
+		this.tokenType = tokenType;
+	}
+
+	public long getExpiresIn() {
+		return expiresIn;
+	}
+
+	public void setExpiresIn(long expiresIn) {
+		this.expiresIn = expiresIn;
+	}
+
+}
@@ -39,13 +39,12 @@ public class UserDTO implements Serializable {
 		this.lastName = entity.getLastName();
 		this.email = entity.getEmail();
 		
-		/**No user entity eu coloquei um parâmetro no manyToMany (fetch), com isso, como já
-		 * está mapeando pelo JPA eu forço que sempre que buscar um usuário no banco
-		 * os roles já virão pendurados no usuário. Com isso, a entidade User eu já possui os objetos de
-		 * roles pendurados nele. Com isso, no roleDto eu crio um construtor RoleDTO que recebe uma entidade role
-		 * a partir disso eu acesso a entidade, dentro da entidade eu dou um get na lista de roles que já veio
-		 * junto com a entidade user. A partir disso eu faço um foreach, pegando cada elemento role, dou um new
-		 * transformando ele em roleDTO e adicionando na lista de Roles do objeto UserDTO, agrupando os 2 objetos**/		
+		/**Os roles do user são LAZY (a coleção só é lida do banco quando alguém a percorre). Quem chama esse
+		 * construtor deve ter carregado o usuário pelo UserRepository.findWithRolesById (ou findWithRolesByEmail),
+		 * cujo entity graph traz os perfis no mesmo SELECT, com LEFT JOIN. Se o usuário veio de outro jeito, o
+		 * getRoles() abaixo dispara a consulta dos perfis, o que só funciona dentro de uma transação, e o
+		 * @BatchSize da coleção faz essa consulta já trazer os perfis de até 50 usuários carregados de uma vez.
+		 * Para cada Role eu dou um new RoleDTO e adiciono na lista de roles do UserDTO**/		
 		entity.getRoles().forEach(role -> this.roles.add(new RoleDTO(role)));
 
 	}
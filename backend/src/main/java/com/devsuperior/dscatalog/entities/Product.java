@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import javax.persistence.Column;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -13,16 +14,37 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
 @Table(name = "tb_product")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Id vindo de uma sequence, e não de IDENTITY: com IDENTITY o Hibernate precisa
+	 * executar cada insert na hora para descobrir o id, e aí não consegue juntar os
+	 * inserts em lote (JDBC batch). Com o otimizador pooled-lo cada ida na sequence
+	 * reserva 50 ids, que são distribuídos em memória, então inserir 50 produtos
+	 * custa uma consulta na sequence e não 50.
+	 **/
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+	@GenericGenerator(name = "product_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "seq_product"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private Long id;
 	private String name;
 	
@@ -35,6 +57,18 @@ public class Product implements Serializable {
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant date;
 
+	/**
+	 * Versão do produto, incrementada pelo Hibernate a cada update (inclusive
+	 * quando só as categorias mudam). É a base do ETag do GET /products/{id}, e de
+	 * quebra faz o controle de concorrência otimista nos updates.
+	 **/
+	@Version
+	@Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+	private long version;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant updatedAt;
+
 	/**
 	 * O set não permite repetição, ele implementa uma coleção. Preciso mapear a
 	 * coleção também com 
@@ -43,8 +77,11 @@ public class Product implements Serializable {
 	 * O JoinColumns define qual será o campo de ID da entidade dessa classe
 	 * O inverseJoiColumns define qual será o campo de ID (chave_estrangeira) da entidade da classe do outro lado que faz a associação
 	 * O JPA sabe que o "category_id" será associado com a categoria, pq o tipo da coleção SET é do tipo <Category>.
+	 * @Cache guarda os ids das categorias de cada produto no cache de segundo nível, então montar o ProductDTO
+	 * com as categorias não precisa ir no banco quando o produto já está no cache.
 	 * **/
 	@ManyToMany
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@JoinTable(name = "tb_product_category",
 		joinColumns = @JoinColumn(name = "product_id"),
  inverseJoinColumns = @JoinColumn(name = "category_id"))
@@ -114,6 +151,20 @@ public class Product implements Serializable {
 		return categories;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	@PrePersist
+	@PreUpdate
+	public void touch() {
+		updatedAt = Instant.now();
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
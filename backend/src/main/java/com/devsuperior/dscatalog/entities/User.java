@@ -6,7 +6,6 @@ import java.util.Set;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -15,6 +14,8 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+
 @Entity
 @Table(name = "tb_user")
 public class User implements Serializable {
@@ -31,8 +32,17 @@ public class User implements Serializable {
 	private String email;
 	private String password;
 
-	@ManyToMany(fetch = FetchType.EAGER) //é pra forçar que sempre que buscar um usuário no banco 
-	//já virá pendurado nele os perfis.
+	/**
+	 * Os perfis não são mais EAGER: cada usuário carregado trazia um SELECT dos
+	 * perfis junto, mesmo quando ninguém ia usar. Quem precisa deles pede
+	 * explicitamente (UserRepository.findWithRolesById, com entity graph), e a
+	 * listagem busca os perfis da página inteira numa consulta só
+	 * (findRolesByUserIds). O @BatchSize é a rede de segurança: se algum código
+	 * percorrer os perfis de vários usuários carregados, o Hibernate busca os
+	 * perfis de até 50 usuários por consulta, em vez de um SELECT por usuário.
+	 **/
+	@ManyToMany
+	@BatchSize(size = 50)
 	@JoinTable(name = "tb_user_role",
 		joinColumns = @JoinColumn(name = "user_id"),
 		inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -1,9 +1,19 @@
 package com.devsuperior.dscatalog.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.repositories.projections.CategoryVersionProjection;
 
 /**Repository é uma interface e extende o JPA Repsitory que vem do Spring Data
  * O JPARepository espera 2 parâmetros, o tipo da e o tipo do ID.**/
@@ -13,4 +23,29 @@ import com.devsuperior.dscatalog.entities.Category;
 @Repository /** Camada de persistência **/
 public interface CategoryRepository extends JpaRepository<Category, Long>{
 
+	/** Projeção direto no DTO, sem criar entidades gerenciadas **/
+	String PROJECTION = "SELECT new com.devsuperior.dscatalog.dto.CategoryDTO(obj.id, obj.name) FROM Category obj";
+
+	@Query(value = PROJECTION, countQuery = "SELECT COUNT(obj) FROM Category obj")
+	Page<CategoryDTO> findAllProjected(Pageable pageable);
+
+	/** Mesma consulta do findAllProjected, mas sem o SELECT COUNT(*) **/
+	@Query(PROJECTION)
+	Slice<CategoryDTO> findSliceProjected(Pageable pageable);
+
+	@Query(PROJECTION + " WHERE obj.id IN :ids")
+	List<CategoryDTO> findProjectedByIdIn(Collection<Long> ids);
+
+	/** Só os ids, para carregar o CategoryRegistry **/
+	@Query("SELECT obj.id FROM Category obj")
+	List<Long> findAllIds();
+
+	/** Quais desses ids existem, numa consulta só **/
+	@Query("SELECT obj.id FROM Category obj WHERE obj.id IN :ids")
+	List<Long> findIdsByIdIn(Collection<Long> ids);
+
+	/** Só as datas, sem carregar a categoria **/
+	@Query("SELECT obj.createdAt AS createdAt, obj.updatedAt AS updatedAt FROM Category obj WHERE obj.id = :id")
+	Optional<CategoryVersionProjection> findVersionById(Long id);
+
 }
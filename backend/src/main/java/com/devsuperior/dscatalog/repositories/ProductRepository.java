@@ -1,9 +1,26 @@
 package com.devsuperior.dscatalog.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.devsuperior.dscatalog.dto.ProductDTO;
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.projections.ProductCategoryProjection;
+import com.devsuperior.dscatalog.repositories.projections.ProductColumnsProjection;
+import com.devsuperior.dscatalog.repositories.projections.ProductVersionProjection;
 
 /**Repository é uma interface e extende o JPA Repsitory que vem do Spring Data
  * O JPARepository espera 2 parâmetros, o tipo da e o tipo do ID.**/
@@ -11,6 +28,84 @@ import com.devsuperior.dscatalog.entities.Product;
 
 /**Quando uso a anotação @Repository, os objetos do tipo ProductRepository passam a ser gerenciados pelo Spring **/
 @Repository /** Camada de persistência **/
-public interface ProductRepository extends JpaRepository<Product, Long>{
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+	/**
+	 * Projeção direto no DTO: o JPA lê só as colunas do construtor e instancia o
+	 * ProductDTO, sem criar entidades gerenciadas (sem snapshot para dirty checking
+	 * e sem ocupar o contexto de persistência).
+	 **/
+	String PROJECTION = "SELECT new com.devsuperior.dscatalog.dto.ProductDTO(obj.id, obj.name, obj.description, "
+			+ "obj.price, obj.imgUrl, obj.date) FROM Product obj";
+
+	@Query(value = PROJECTION, countQuery = "SELECT COUNT(obj) FROM Product obj")
+	Page<ProductDTO> findAllProjected(Pageable pageable);
+
+	/** Mesma consulta do findAllProjected, mas sem o SELECT COUNT(*) **/
+	@Query(PROJECTION)
+	Slice<ProductDTO> findSliceProjected(Pageable pageable);
+
+	/**
+	 * Percorre a tabela inteira sem carregar tudo na memória de uma vez: o driver
+	 * busca as linhas de 500 em 500 enquanto o Stream é consumido. Precisa rodar
+	 * dentro de uma transação e o Stream tem que ser fechado no final. No Postgres,
+	 * com fetch size e autocommit desligado, isso vira um cursor no servidor.
+	 **/
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query(PROJECTION + " ORDER BY obj.id")
+	Stream<ProductDTO> streamAllProjected();
+
+	/**
+	 * Próximo lote do export, por keyset no id (índice da chave primária): os
+	 * produtos com id maior que o último já enviado. Cada lote é uma consulta
+	 * curta, então o custo não cresce com a posição no catálogo.
+	 **/
+	@Query(PROJECTION + " WHERE obj.id > :afterId ORDER BY obj.id")
+	List<ProductDTO> findProjectedAfterId(Long afterId, Pageable pageable);
+
+	/** Quais dos ids existem, sem carregar os produtos **/
+	@Query("SELECT obj.id FROM Product obj WHERE obj.id IN :ids")
+	List<Long> findIdsByIdIn(Collection<Long> ids);
+
+	@Query(PROJECTION + " WHERE obj.id IN :ids")
+	List<ProductDTO> findProjectedByIdIn(Collection<Long> ids);
+
+	/**
+	 * Categorias de todos os produtos da lista (uma página, por exemplo) em uma
+	 * consulta só, em vez de uma consulta por produto.
+	 **/
+	@Query("SELECT obj.id AS productId, cat.id AS categoryId, cat.name AS categoryName "
+			+ "FROM Product obj JOIN obj.categories cat WHERE obj.id IN :ids")
+	List<ProductCategoryProjection> findCategoriesByProductIds(Collection<Long> ids);
+
+	/** Só a versão e as datas de alteração, sem carregar o produto nem as categorias **/
+	@Query("SELECT obj.version AS version, obj.updatedAt AS updatedAt, MAX(cat.createdAt) AS categoriesCreatedAt, "
+			+ "MAX(cat.updatedAt) AS categoriesUpdatedAt FROM Product obj LEFT JOIN obj.categories cat "
+			+ "WHERE obj.id = :id GROUP BY obj.id, obj.version, obj.updatedAt")
+	Optional<ProductVersionProjection> findVersionById(Long id);
+
+	/** Todos os pares (produto, categoria), lidos aos poucos, para carregar o ProductCategoryIndex **/
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT obj.id AS productId, cat.id AS categoryId, cat.name AS categoryName "
+			+ "FROM Product obj JOIN obj.categories cat")
+	Stream<ProductCategoryProjection> streamAllCategories();
+
+	/** Id, preço e data de todos os produtos, lidos aos poucos, para carregar o ProductColumnIndex **/
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT obj.id AS id, obj.price AS price, obj.date AS date FROM Product obj")
+	Stream<ProductColumnsProjection> streamAllColumns();
+
+	@Query("SELECT obj.id AS id, obj.price AS price, obj.date AS date FROM Product obj WHERE obj.id IN :ids")
+	List<ProductColumnsProjection> findColumnsByIdIn(Collection<Long> ids);
+
+	/**
+	 * DELETE do bulk, por lote de ids já travados (lockFilteredIds), sem carregar
+	 * os produtos. Depois de um DELETE em JPQL o Hibernate invalida sozinho a
+	 * região do Product no cache de segundo nível, e o clearAutomatically tira do
+	 * contexto de persistência as entidades apagadas.
+	 **/
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("DELETE FROM Product obj WHERE obj.id IN :ids")
+	int deleteByIdIn(Collection<Long> ids);
 
 }
@@ -0,0 +1,75 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.entities.Product;
+
+/**
+ * Consultas do ProductRepository que não dá pra escrever só com @Query ou com
+ * nome de método. A implementação fica em ProductRepositoryCustomImpl, o Spring
+ * Data junta as duas coisas no mesmo repository.
+ **/
+public interface ProductRepositoryCustom {
+
+	/**
+	 * Paginação por cursor (keyset/seek). Ao invés de OFFSET, busca os produtos que
+	 * vêm depois do par (lastValue, lastId) na ordenação informada, então o custo é
+	 * o mesmo em qualquer profundidade. Quando lastId é nulo, retorna a primeira
+	 * página.
+	 **/
+	List<ProductDTO> findKeysetPage(String property, Sort.Direction direction, Object lastValue, Long lastId, int limit);
+
+	/**
+	 * Página dos produtos que passam no filtro (categorias, preço, data), com a
+	 * ordenação do Pageable, filtrada e ordenada pelo banco. Não roda COUNT: quem
+	 * precisa do total chama o countFiltered.
+	 **/
+	List<ProductDTO> findFilteredPage(ProductFilterDTO filter, Pageable pageable);
+
+	long countFiltered(ProductFilterDTO filter);
+
+	/**
+	 * Ids dos produtos que passam no filtro (o mesmo predicado do
+	 * findFilteredPage) e, quando ids não é nulo, estão em ids. Em ordem de id e
+	 * travados (SELECT ... FOR UPDATE) até o fim da transação, para o bulk alterar
+	 * exatamente essas linhas mesmo com outra gravação acontecendo ao mesmo tempo.
+	 **/
+	List<Long> lockFilteredIds(ProductFilterDTO filter, Collection<Long> ids);
+
+	/**
+	 * Alterações de preço do bulk: um UPDATE com o filtro e os ids no WHERE, sem
+	 * carregar os produtos. Sobem a versão e o updatedAt como o Hibernate faria num
+	 * update normal, para o ETag do produto mudar; o multiply arredonda no próprio
+	 * UPDATE. Depois de um UPDATE em JPQL o Hibernate invalida sozinho a região do
+	 * Product no cache de segundo nível, e o contexto de persistência é limpo para
+	 * não ficar com entidades desatualizadas.
+	 **/
+	int setPriceFiltered(ProductFilterDTO filter, Collection<Long> ids, Double price, Instant now);
+
+	int multiplyPriceFiltered(ProductFilterDTO filter, Collection<Long> ids, double factor, Instant now);
+
+	/**
+	 * Insere produtos novos, manda os inserts para o banco na hora (flush, que com
+	 * hibernate.jdbc.batch_size vira JDBC batch) e limpa o contexto de persistência,
+	 * para a memória e o custo do flush não crescerem lote após lote. Depois da
+	 * chamada os produtos estão desanexados (detached), mas já com o id preenchido.
+	 **/
+	void insertAndClear(List<Product> products);
+
+	/**
+	 * Apaga as linhas da tb_product_category dos produtos (ela não é uma entidade,
+	 * então o DELETE é em SQL). Um @Modifying nativo comum faz o Hibernate
+	 * invalidar o cache de segundo nível inteiro, porque ele não sabe quais tabelas
+	 * o SQL mexe; aqui a tabela é informada, e só a região das categorias dos
+	 * produtos (Product.categories) é invalidada.
+	 **/
+	int deleteCategoryLinksByProductIdIn(Collection<Long> ids);
+
+}
@@ -0,0 +1,223 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CommonAbstractCriteria;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public void insertAndClear(List<Product> products) {
+		products.forEach(em::persist);
+		em.flush();
+		em.clear();
+	}
+
+	@Override
+	public int deleteCategoryLinksByProductIdIn(Collection<Long> ids) {
+		em.flush();
+		int deleted = em.createNativeQuery("DELETE FROM tb_product_category WHERE product_id IN :ids")
+				.unwrap(NativeQuery.class).addSynchronizedQuerySpace("tb_product_category")
+				.setParameter("ids", ids).executeUpdate();
+		em.clear();
+		return deleted;
+	}
+
+	@Override
+	public List<ProductDTO> findFilteredPage(ProductFilterDTO filter, Pageable pageable) {
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<ProductDTO> cq = cb.createQuery(ProductDTO.class);
+		Root<Product> root = cq.from(Product.class);
+
+		/** Desempate pelo id, para as páginas não repetirem nem pularem produtos **/
+		List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		if (pageable.getSort().getOrderFor("id") == null) {
+			orders.add(cb.asc(root.get("id")));
+		}
+
+		cq.select(cb.construct(ProductDTO.class, root.get("id"), root.get("name"), root.get("description"),
+				root.get("price"), root.get("imgUrl"), root.get("date"))).where(filter(filter, cq, root, cb))
+				.orderBy(orders);
+
+		return em.createQuery(cq).setFirstResult(Math.toIntExact(pageable.getOffset()))
+				.setMaxResults(pageable.getPageSize()).getResultList();
+	}
+
+	@Override
+	public long countFiltered(ProductFilterDTO filter) {
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+		Root<Product> root = cq.from(Product.class);
+		cq.select(cb.count(root)).where(filter(filter, cq, root, cb));
+		return em.createQuery(cq).getSingleResult();
+	}
+
+	@Override
+	public List<Long> lockFilteredIds(ProductFilterDTO filter, Collection<Long> ids) {
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+		Root<Product> root = cq.from(Product.class);
+		cq.select(root.get("id")).where(filter(filter, ids, cq, root, cb)).orderBy(cb.asc(root.get("id")));
+		return em.createQuery(cq).setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+	}
+
+	@Override
+	public int setPriceFiltered(ProductFilterDTO filter, Collection<Long> ids, Double price, Instant now) {
+		return updatePrice(filter, ids, now, (current, cb) -> cb.literal(price));
+	}
+
+	@Override
+	public int multiplyPriceFiltered(ProductFilterDTO filter, Collection<Long> ids, double factor, Instant now) {
+		return updatePrice(filter, ids, now,
+				(current, cb) -> cb.function("ROUND", Double.class, cb.prod(current, factor), cb.literal(2)));
+	}
+
+	private int updatePrice(ProductFilterDTO filter, Collection<Long> ids, Instant now,
+			BiFunction<Path<Double>, CriteriaBuilder, Expression<Double>> newPrice) {
+
+		em.flush();
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaUpdate<Product> cu = cb.createCriteriaUpdate(Product.class);
+		Root<Product> root = cu.from(Product.class);
+		Path<Double> price = root.get("price");
+		Path<Long> version = root.get("version");
+		cu.set(price, newPrice.apply(price, cb)).set(version, cb.sum(version, 1L))
+				.set(root.<Instant>get("updatedAt"), now).where(filter(filter, ids, cu, root, cb));
+		int updated = em.createQuery(cu).executeUpdate();
+		em.clear();
+		return updated;
+	}
+
+	/**
+	 * As categorias viram um EXISTS na tb_product_category (um por categoria no
+	 * modo "and"), assim o produto não se repete no resultado como aconteceria com
+	 * um JOIN.
+	 **/
+	private static Predicate filter(ProductFilterDTO filter, CommonAbstractCriteria cq, Root<Product> root,
+			CriteriaBuilder cb) {
+
+		return filter(filter, null, cq, root, cb);
+	}
+
+	/** O filtro e, quando ids não é nulo, o id IN ids **/
+	private static Predicate filter(ProductFilterDTO filter, Collection<Long> ids, CommonAbstractCriteria cq,
+			Root<Product> root, CriteriaBuilder cb) {
+
+		List<Predicate> where = new ArrayList<>();
+		if (ids != null) {
+			where.add(root.get("id").in(ids));
+		}
+		if (filter.hasCategories()) {
+			if (filter.isMatchAllCategories()) {
+				filter.getCategoryId().forEach(id -> where.add(cb.exists(inCategories(List.of(id), cq, root, cb))));
+			} else {
+				where.add(cb.exists(inCategories(filter.getCategoryId(), cq, root, cb)));
+			}
+		}
+		Path<Double> price = root.get("price");
+		if (filter.getMinPrice() != null) {
+			where.add(cb.greaterThanOrEqualTo(price, filter.getMinPrice()));
+		}
+		if (filter.getMaxPrice() != null) {
+			where.add(cb.lessThanOrEqualTo(price, filter.getMaxPrice()));
+		}
+		Path<Instant> date = root.get("date");
+		if (filter.getFrom() != null) {
+			where.add(cb.greaterThanOrEqualTo(date, filter.getFrom()));
+		}
+		if (filter.getTo() != null) {
+			where.add(cb.lessThanOrEqualTo(date, filter.getTo()));
+		}
+		return cb.and(where.toArray(new Predicate[0]));
+	}
+
+	private static Subquery<Long> inCategories(Collection<Long> categoryIds, CommonAbstractCriteria cq,
+			Root<Product> root, CriteriaBuilder cb) {
+
+		Subquery<Long> sq = cq.subquery(Long.class);
+		Root<Product> product = sq.from(Product.class);
+		Join<Product, Category> category = product.join("categories");
+		sq.select(category.get("id")).where(cb.equal(product.get("id"), root.get("id")),
+				category.get("id").in(categoryIds));
+		return sq;
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public List<ProductDTO> findKeysetPage(String property, Sort.Direction direction, Object lastValue, Long lastId,
+			int limit) {
+
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<ProductDTO> cq = cb.createQuery(ProductDTO.class);
+		Root<Product> root = cq.from(Product.class);
+
+		boolean asc = direction.isAscending();
+		boolean byId = "id".equals(property);
+		Path<Long> id = root.get("id");
+		Path<Comparable> key = root.get(property);
+
+		Predicate where = cb.conjunction();
+
+		/**
+		 * Valores nulos não têm posição bem definida no cursor, então quando a
+		 * ordenação não é pelo id eles ficam de fora do modo keyset.
+		 **/
+		if (!byId) {
+			where = cb.and(where, cb.isNotNull(key));
+		}
+
+		/** (key, id) > (lastValue, lastId) escrito de forma que o banco use o índice **/
+		if (lastId != null) {
+			Predicate afterId = asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+			if (byId) {
+				where = cb.and(where, afterId);
+			} else {
+				Comparable value = (Comparable) lastValue;
+				Predicate afterKey = asc ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+				where = cb.and(where, cb.or(afterKey, cb.and(cb.equal(key, value), afterId)));
+			}
+		}
+
+		/** Mesma projeção do ProductRepository.PROJECTION, sem hidratar entidades **/
+		cq.select(cb.construct(ProductDTO.class, id, root.get("name"), root.get("description"), root.get("price"),
+				root.get("imgUrl"), root.get("date"))).where(where);
+		if (byId) {
+			cq.orderBy(asc ? cb.asc(id) : cb.desc(id));
+		} else {
+			cq.orderBy(asc ? cb.asc(key) : cb.desc(key), asc ? cb.asc(id) : cb.desc(id));
+		}
+
+		return em.createQuery(cq).setMaxResults(limit).getResultList();
+	}
+
+}
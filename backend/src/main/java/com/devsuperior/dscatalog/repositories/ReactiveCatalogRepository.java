@@ -0,0 +1,238 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consultas de leitura do catálogo em R2DBC, sem bloquear thread: cada método
+ * devolve um Flux/Mono que emite as linhas conforme o driver as entrega. Usado só
+ * pela pilha reativa (ReactiveReadConfig); as gravações continuam no
+ * ProductService/JPA. Devolve os mesmos DTOs da API servlet.
+ *
+ * SQL direto nas tabelas, porque aqui não existe JPA: os nomes das colunas são
+ * os que o Hibernate gera a partir das entidades.
+ **/
+public class ReactiveCatalogRepository {
+
+	/** Propriedades que a listagem aceita no sort -> coluna, para nunca concatenar texto do cliente no SQL **/
+	private static final Map<String, String> PRODUCT_COLUMNS = Map.of("id", "id", "name", "name", "price", "price",
+			"date", "date", "imgUrl", "img_url");
+	private static final Map<String, String> CATEGORY_COLUMNS = Map.of("id", "id", "name", "name");
+
+	private static final String PRODUCT_SELECT = "SELECT p.id, p.name, p.description, p.price, p.img_url, p.date "
+			+ "FROM tb_product p";
+
+	private final DatabaseClient client;
+
+	public ReactiveCatalogRepository(DatabaseClient client) {
+		this.client = client;
+	}
+
+	/** Página dos produtos que passam no filtro, como o ProductRepositoryCustom.findFilteredPage **/
+	public Flux<ProductDTO> findProducts(ProductFilterDTO filter, long offset, int limit, Sort sort) {
+		Where where = Where.of(filter);
+		return where.bind(client.sql(PRODUCT_SELECT + where.sql + orderBy(sort, PRODUCT_COLUMNS)
+				+ " LIMIT :limit OFFSET :offset"))
+				.bind("limit", limit).bind("offset", offset)
+				.map((row, meta) -> toProduct(row)).all();
+	}
+
+	public Mono<Long> countProducts(ProductFilterDTO filter) {
+		Where where = Where.of(filter);
+		return where.bind(client.sql("SELECT COUNT(*) AS total FROM tb_product p" + where.sql))
+				.map((row, meta) -> row.get("total", Long.class)).one();
+	}
+
+	/**
+	 * Paginação por cursor, com o mesmo SQL que o
+	 * ProductRepositoryCustom.findKeysetPage gera: (chave, id) depois de
+	 * (lastValue, lastId), e sem os nulos quando a chave não é o id.
+	 **/
+	public Flux<ProductDTO> findProductsAfter(String property, Sort.Direction direction, Object lastValue, Long lastId,
+			int limit) {
+
+		String column = "p." + PRODUCT_COLUMNS.get(property);
+		boolean byId = "id".equals(property);
+		String op = direction.isAscending() ? " > " : " < ";
+		String dir = direction.isAscending() ? " ASC" : " DESC";
+
+		StringBuilder sql = new StringBuilder(PRODUCT_SELECT).append(" WHERE 1 = 1");
+		if (!byId) {
+			sql.append(" AND ").append(column).append(" IS NOT NULL");
+		}
+		if (lastId != null) {
+			if (byId) {
+				sql.append(" AND p.id").append(op).append(":lastId");
+			} else {
+				sql.append(" AND (").append(column).append(op).append(":lastValue OR (").append(column)
+						.append(" = :lastValue AND p.id").append(op).append(":lastId))");
+			}
+		}
+		sql.append(" ORDER BY ");
+		if (!byId) {
+			sql.append(column).append(dir).append(", ");
+		}
+		sql.append("p.id").append(dir).append(" LIMIT :limit");
+
+		GenericExecuteSpec spec = client.sql(sql.toString()).bind("limit", limit);
+		if (lastId != null) {
+			spec = spec.bind("lastId", lastId);
+			if (!byId) {
+				spec = spec.bind("lastValue", toColumn(lastValue));
+			}
+		}
+		return spec.map((row, meta) -> toProduct(row)).all();
+	}
+
+	/** Produtos dos ids informados, em qualquer ordem (a busca textual reordena pela relevância) **/
+	public Flux<ProductDTO> findProductsByIds(Collection<Long> ids) {
+		return client.sql(PRODUCT_SELECT + " WHERE p.id IN (:ids)").bind("ids", ids)
+				.map((row, meta) -> toProduct(row)).all();
+	}
+
+	public Mono<ProductDTO> findProductById(Long id) {
+		return client.sql(PRODUCT_SELECT + " WHERE p.id = :id")
+				.bind("id", id).map((row, meta) -> toProduct(row)).one();
+	}
+
+	public Flux<CategoryDTO> findCategoriesByProductId(Long productId) {
+		return client.sql("SELECT cat.id, cat.name FROM tb_category cat "
+				+ "JOIN tb_product_category pc ON pc.category_id = cat.id WHERE pc.product_id = :id ORDER BY cat.id")
+				.bind("id", productId).map((row, meta) -> toCategory(row)).all();
+	}
+
+	/** Categorias de todos os produtos da lista (uma página) numa consulta só, por id do produto **/
+	public Mono<Map<Long, Collection<CategoryDTO>>> findCategoriesByProductIds(Collection<Long> productIds) {
+		return client.sql("SELECT pc.product_id, cat.id, cat.name FROM tb_category cat "
+				+ "JOIN tb_product_category pc ON pc.category_id = cat.id WHERE pc.product_id IN (:ids) ORDER BY cat.id")
+				.bind("ids", productIds)
+				.map((row, meta) -> Map.entry(row.get("product_id", Long.class), toCategory(row))).all()
+				.collectMultimap(Map.Entry::getKey, Map.Entry::getValue);
+	}
+
+	public Flux<CategoryDTO> findCategories(long offset, int limit, Sort sort) {
+		return client.sql("SELECT id, name FROM tb_category" + orderBy(sort, CATEGORY_COLUMNS)
+				+ " LIMIT :limit OFFSET :offset")
+				.bind("limit", limit).bind("offset", offset)
+				.map((row, meta) -> toCategory(row)).all();
+	}
+
+	public Mono<Long> countCategories() {
+		return client.sql("SELECT COUNT(*) AS total FROM tb_category").map((row, meta) -> row.get("total", Long.class))
+				.one();
+	}
+
+	/** ORDER BY só com colunas conhecidas, e sempre desempatando pelo id para a paginação ser estável **/
+	private static String orderBy(Sort sort, Map<String, String> columns) {
+		StringBuilder sql = new StringBuilder(" ORDER BY ");
+		for (Sort.Order order : sort) {
+			String column = columns.get(order.getProperty());
+			if (column == null) {
+				throw new InvalidParameterException("Não é possível ordenar por " + order.getProperty());
+			}
+			sql.append(column).append(order.isAscending() ? " ASC, " : " DESC, ");
+		}
+		return sql.append("id").toString();
+	}
+
+	private static ProductDTO toProduct(Row row) {
+		return new ProductDTO(row.get("id", Long.class), row.get("name", String.class),
+				row.get("description", String.class), row.get("price", Double.class),
+				row.get("img_url", String.class), toInstant(row.get("date", LocalDateTime.class)));
+	}
+
+	private static CategoryDTO toCategory(Row row) {
+		return new CategoryDTO(row.get("id", Long.class), row.get("name", String.class));
+	}
+
+	/**
+	 * A coluna é TIMESTAMP WITHOUT TIME ZONE e o Hibernate grava o Instant no fuso
+	 * da JVM, então a leitura usa o mesmo fuso para devolver o mesmo instante.
+	 **/
+	private static Instant toInstant(LocalDateTime value) {
+		return value == null ? null : value.atZone(ZoneId.systemDefault()).toInstant();
+	}
+
+	/** O contrário do toInstant, para comparar com a coluna date **/
+	private static Object toColumn(Object value) {
+		return value instanceof Instant ? LocalDateTime.ofInstant((Instant) value, ZoneId.systemDefault()) : value;
+	}
+
+	/**
+	 * WHERE do filtro da listagem, com os valores sempre em parâmetros. As
+	 * categorias viram um EXISTS na tb_product_category (um por categoria no modo
+	 * "and"), como no ProductRepositoryCustomImpl, para o produto não se repetir.
+	 **/
+	private static class Where {
+
+		final String sql;
+		final Map<String, Object> binds;
+
+		Where(String sql, Map<String, Object> binds) {
+			this.sql = sql;
+			this.binds = binds;
+		}
+
+		static Where of(ProductFilterDTO filter) {
+			StringBuilder sql = new StringBuilder();
+			Map<String, Object> binds = new HashMap<>();
+			if (filter.hasCategories()) {
+				if (filter.isMatchAllCategories()) {
+					List<Long> ids = filter.getCategoryId();
+					for (int i = 0; i < ids.size(); i++) {
+						sql.append(" AND EXISTS (SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id "
+								+ "AND pc.category_id = :category").append(i).append(")");
+						binds.put("category" + i, ids.get(i));
+					}
+				} else {
+					sql.append(" AND EXISTS (SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id "
+							+ "AND pc.category_id IN (:categories))");
+					binds.put("categories", filter.getCategoryId());
+				}
+			}
+			if (filter.getMinPrice() != null) {
+				sql.append(" AND p.price >= :minPrice");
+				binds.put("minPrice", filter.getMinPrice());
+			}
+			if (filter.getMaxPrice() != null) {
+				sql.append(" AND p.price <= :maxPrice");
+				binds.put("maxPrice", filter.getMaxPrice());
+			}
+			if (filter.getFrom() != null) {
+				sql.append(" AND p.date >= :from");
+				binds.put("from", toColumn(filter.getFrom()));
+			}
+			if (filter.getTo() != null) {
+				sql.append(" AND p.date <= :to");
+				binds.put("to", toColumn(filter.getTo()));
+			}
+			return new Where(sql.length() == 0 ? "" : " WHERE" + sql.substring(" AND".length()), binds);
+		}
+
+		GenericExecuteSpec bind(GenericExecuteSpec spec) {
+			for (Map.Entry<String, Object> bind : binds.entrySet()) {
+				spec = spec.bind(bind.getKey(), bind.getValue());
+			}
+			return spec;
+		}
+	}
+
+}
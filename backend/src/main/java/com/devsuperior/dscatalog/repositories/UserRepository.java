@@ -1,9 +1,20 @@
 package com.devsuperior.dscatalog.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.devsuperior.dscatalog.dto.UserDTO;
 import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.repositories.projections.UserRoleProjection;
 
 /**Repository é uma interface e extende o JPA Repsitory que vem do Spring Data
  * O JPARepository espera 2 parâmetros, o tipo da e o tipo do ID.**/
@@ -13,4 +24,34 @@ import com.devsuperior.dscatalog.entities.User;
 @Repository /** Camada de persistência **/
 public interface UserRepository extends JpaRepository<User, Long>{
 
+	/**
+	 * Projeção direto no DTO, sem criar entidades gerenciadas. A listagem é em dois
+	 * passos: primeiro a página de usuários (LIMIT/OFFSET só na tb_user, então a
+	 * paginação é feita pelo banco), depois os perfis de todos os usuários da
+	 * página pelo findRolesByUserIds. Um JOIN FETCH dos perfis junto com a
+	 * paginação faria o Hibernate trazer tudo e paginar em memória.
+	 **/
+	String PROJECTION = "SELECT new com.devsuperior.dscatalog.dto.UserDTO(obj.id, obj.firstName, obj.lastName, "
+			+ "obj.email) FROM User obj";
+
+	@Query(value = PROJECTION, countQuery = "SELECT COUNT(obj) FROM User obj")
+	Page<UserDTO> findAllProjected(Pageable pageable);
+
+	/** Mesma consulta do findAllProjected, mas sem o SELECT COUNT(*) **/
+	@Query(PROJECTION)
+	Slice<UserDTO> findSliceProjected(Pageable pageable);
+
+	/** O usuário já com os perfis, numa consulta só (LEFT JOIN pelo entity graph) **/
+	@EntityGraph(attributePaths = "roles")
+	Optional<User> findWithRolesById(Long id);
+
+	/** Usado na autenticação (via UserLookupCache) **/
+	@EntityGraph(attributePaths = "roles")
+	Optional<User> findWithRolesByEmail(String email);
+
+	/** Perfis de todos os usuários da lista em uma consulta só **/
+	@Query("SELECT obj.id AS userId, role.id AS roleId, role.authority AS authority "
+			+ "FROM User obj JOIN obj.roles role WHERE obj.id IN :ids")
+	List<UserRoleProjection> findRolesByUserIds(Collection<Long> ids);
+
 }
@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.repositories.projections;
+
+import java.time.Instant;
+
+/** Datas de criação e de alteração de uma categoria, para o ETag e o Last-Modified **/
+public interface CategoryVersionProjection {
+
+	Instant getCreatedAt();
+
+	Instant getUpdatedAt();
+
+}
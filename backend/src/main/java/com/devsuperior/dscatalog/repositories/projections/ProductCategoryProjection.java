@@ -0,0 +1,16 @@
+package com.devsuperior.dscatalog.repositories.projections;
+
+/**
+ * Projeção de interface: o Spring Data implementa essa interface com os aliases
+ * da consulta (productId, categoryId, categoryName), então só essas colunas são
+ * lidas do banco, sem montar entidades.
+ **/
+public interface ProductCategoryProjection {
+
+	Long getProductId();
+
+	Long getCategoryId();
+
+	String getCategoryName();
+
+}
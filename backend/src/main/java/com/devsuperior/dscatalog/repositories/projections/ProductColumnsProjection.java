@@ -0,0 +1,14 @@
+package com.devsuperior.dscatalog.repositories.projections;
+
+import java.time.Instant;
+
+/** Só as colunas usadas pelo ProductColumnIndex: id, preço e data de cada produto **/
+public interface ProductColumnsProjection {
+
+	Long getId();
+
+	Double getPrice();
+
+	Instant getDate();
+
+}
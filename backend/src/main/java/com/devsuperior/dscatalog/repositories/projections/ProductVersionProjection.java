@@ -0,0 +1,20 @@
+package com.devsuperior.dscatalog.repositories.projections;
+
+import java.time.Instant;
+
+/**
+ * O que o ETag e o Last-Modified do GET /products/{id} precisam: a versão do
+ * produto e as datas de alteração dele e das categorias dele (o nome das
+ * categorias também vai na resposta).
+ **/
+public interface ProductVersionProjection {
+
+	Long getVersion();
+
+	Instant getUpdatedAt();
+
+	Instant getCategoriesCreatedAt();
+
+	Instant getCategoriesUpdatedAt();
+
+}
@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.repositories.projections;
+
+/** Par (usuário, perfil) usado para montar os perfis de uma página de usuários numa consulta só **/
+public interface UserRoleProjection {
+
+	Long getUserId();
+
+	Long getRoleId();
+
+	String getAuthority();
+
+}
@@ -0,0 +1,32 @@
+package com.devsuperior.dscatalog.resources;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devsuperior.dscatalog.dto.CredentialsDTO;
+import com.devsuperior.dscatalog.dto.TokenDTO;
+import com.devsuperior.dscatalog.services.AuthService;
+
+@RestController
+@RequestMapping(value = "/auth")
+public class AuthResource {
+
+	@Autowired
+	private AuthService service;
+
+	/**
+	 * Troca email e senha por um token de acesso. As próximas requisições mandam o
+	 * token no cabeçalho Authorization: Bearer <token>.
+	 **/
+	@PostMapping(value = "/token")
+	public ResponseEntity<TokenDTO> token(@Valid @RequestBody CredentialsDTO credentials) {
+		return ResponseEntity.ok().body(service.login(credentials));
+	}
+
+}
@@ -5,6 +5,7 @@ import java.net.URI;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,10 +15,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.services.CategoryServices;
+import com.devsuperior.dscatalog.services.ResourceVersion;
 
 @RestController
 @RequestMapping(value = "/categories") /** Mapeando a rota rest do recurso. É colocada no plural **/
@@ -32,19 +35,43 @@ public class CategoryResource {
 	 * e podemos definir qual o tipo de dado que estará no corpo da resposta http
 	 **/
 
+	/**
+	 * As leituras levam ETag (e o GET por id também Last-Modified); com
+	 * If-None-Match de uma versão que ainda vale a resposta é um 304, sem buscar as
+	 * categorias no banco.
+	 **/
 	@GetMapping
-	public ResponseEntity<Page<CategoryDTO>> findAll(Pageable pageable) 
+	public ResponseEntity<Page<CategoryDTO>> findAll(Pageable pageable, WebRequest request) 
 		 {
 		
+		if (notModified(request, service.findListVersion().forQuery(request.getParameterMap()))) {
+			return null;
+		}
 		
 		Page<CategoryDTO> list = service.findAllPaged(pageable);
 				
 		return ResponseEntity.ok().body(list);
 	}
 
+	/**
+	 * Com ?count=false a listagem volta como Slice: sem totalElements/totalPages,
+	 * só com o hasNext, e o banco não roda o SELECT COUNT(*).
+	 **/
+	@GetMapping(params = "count=false")
+	public ResponseEntity<Slice<CategoryDTO>> findAllSliced(Pageable pageable, WebRequest request) {
+		if (notModified(request, service.findListVersion().forQuery(request.getParameterMap()))) {
+			return null;
+		}
+		Slice<CategoryDTO> list = service.findAllSliced(pageable);
+		return ResponseEntity.ok().body(list);
+	}
+
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id) { // @PathVariable - associa a variavel da rota
+	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id, WebRequest request) { // @PathVariable - associa a variavel da rota
 																			// com o parâmetro
+		if (notModified(request, service.findVersionById(id))) {
+			return null;
+		}
 		CategoryDTO catDto = service.findById(id);
 		return ResponseEntity.ok().body(catDto);
 	}
@@ -86,4 +113,12 @@ public class CategoryResource {
 		return ResponseEntity.noContent().build();
 	}
 
+	/** Também coloca o ETag e o Last-Modified (quando existe) na resposta, seja 200 ou 304 **/
+	private boolean notModified(WebRequest request, ResourceVersion version) {
+		if (version.getLastModified() == null) {
+			return request.checkNotModified(version.getETag());
+		}
+		return request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli());
+	}
+
 }
@@ -0,0 +1,35 @@
+package com.devsuperior.dscatalog.resources;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devsuperior.dscatalog.dto.ProductFacetsDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.ProductFacetService;
+
+/**
+ * Facetas para a barra lateral do catálogo, com os mesmos filtros do GET
+ * /products e, opcionalmente, a busca textual:
+ * /products/facets?categoryId=3&maxPrice=2000&q=gamer&priceBucket=250
+ **/
+@RestController
+@RequestMapping(value = "/products/facets")
+public class ProductFacetResource {
+
+	@Autowired
+	private ProductFacetService service;
+
+	@GetMapping
+	public ResponseEntity<ProductFacetsDTO> findFacets(ProductFilterDTO filter,
+			@RequestParam(value = "q", defaultValue = "") String q,
+			@RequestParam(value = "priceBucket", defaultValue = "500") double priceBucket) {
+
+		ProductFacetsDTO facets = service.findFacets(filter, q, priceBucket);
+		return ResponseEntity.ok().body(facets);
+	}
+
+}
@@ -1,13 +1,22 @@
 package com.devsuperior.dscatalog.resources;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,36 +24,162 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.ResourceVersion;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 @RestController
+@Validated
 @RequestMapping(value = "/products") /** Mapeando a rota rest do recurso. É colocada no plural **/
 
 public class ProductResource {
 
+	/** Quantos produtos o export lê (e escreve) por vez **/
+	private static final int EXPORT_BATCH_SIZE = 500;
+
 	@Autowired
 	private ProductService service;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${dscatalog.export.timeout:30m}")
+	private Duration exportTimeout;
+
 	/**
 	 * É um objeto do spring que encapsula uma resposta http. Ele é do tipo generic
 	 * e podemos definir qual o tipo de dado que estará no corpo da resposta http
 	 **/
 
+	/**
+	 * Com ?expand=categories cada produto da página já vem com as categorias, assim
+	 * o cliente não precisa chamar o /products/{id} para cada produto.
+	 *
+	 * Os filtros (?categoryId=1,2&categoryMode=and) chegam no ProductFilterDTO.
+	 *
+	 * A resposta leva um ETag, calculado da geração das listagens em memória
+	 * (PageCountCache.version) e dos parâmetros da requisição. Se o cliente mandar If-None-Match de uma versão que
+	 * ainda vale, o checkNotModified já marca a resposta como 304 e a página não é
+	 * consultada.
+	 **/
 	@GetMapping
-	public ResponseEntity<Page<ProductDTO>> findAll(Pageable pageable) {
+	public ResponseEntity<Page<ProductDTO>> findAll(Pageable pageable, ProductFilterDTO filter,
+			@RequestParam(value = "expand", defaultValue = "") String expand, WebRequest request) {
+
+		if (notModified(request, service.findListVersion().forQuery(request.getParameterMap()))) {
+			return null;
+		}
 		
-		Page<ProductDTO> list = service.findAllPaged(pageable);
+		Page<ProductDTO> list = service.findAllPaged(filter, pageable, expandCategories(expand));
 				
 		return ResponseEntity.ok().body(list);
 	}
 
+	/**
+	 * Com ?count=false a listagem volta como Slice: sem totalElements/totalPages,
+	 * só com o hasNext, e o banco não roda o SELECT COUNT(*).
+	 **/
+	@GetMapping(params = { "count=false", "!after" })
+	public ResponseEntity<Slice<ProductDTO>> findAllSliced(Pageable pageable, ProductFilterDTO filter,
+			WebRequest request) {
+
+		if (notModified(request, service.findListVersion().forQuery(request.getParameterMap()))) {
+			return null;
+		}
+		Slice<ProductDTO> list = service.findAllSliced(filter, pageable);
+		return ResponseEntity.ok().body(list);
+	}
+
+	/**
+	 * Quando a requisição tem o parâmetro "after" a listagem é feita por cursor:
+	 * /products?after=&size=50&sort=name,asc para a primeira página e depois
+	 * /products?after=<nextCursor>&size=50 para as seguintes.
+	 **/
+	@GetMapping(params = "after")
+	public ResponseEntity<CursorPageDTO<ProductDTO>> findAllKeyset(@RequestParam String after, Pageable pageable,
+			ProductFilterDTO filter) {
+
+		if (!filter.isEmpty()) {
+			throw new InvalidParameterException("Filtros não são suportados na paginação por cursor");
+		}
+
+		CursorPageDTO<ProductDTO> list = service.findAllKeyset(after, pageable);
+
+		return ResponseEntity.ok().body(list);
+	}
+
+	/**
+	 * Busca por texto no nome e na descrição dos produtos, do mais para o menos
+	 * relevante: /products/search?q=pc gamer&page=0&size=12. Acentos são ignorados,
+	 * então "eletronicos" encontra "Eletrônicos", e a última palavra também casa
+	 * como prefixo.
+	 **/
+	@GetMapping(value = "/search")
+	public ResponseEntity<Page<ProductDTO>> search(@RequestParam(value = "q", defaultValue = "") String q,
+			Pageable pageable) {
+		Page<ProductDTO> list = service.search(q, pageable);
+		return ResponseEntity.ok().body(list);
+	}
+
+	/**
+	 * Catálogo inteiro em NDJSON (um ProductDTO com as categorias por linha), para
+	 * os parceiros que precisam de tudo: uma requisição só, em vez de milhares de
+	 * páginas com OFFSET e COUNT. O StreamingResponseBody roda no executor
+	 * assíncrono do Spring MVC, então a thread do Tomcat é liberada logo. Os lotes
+	 * são lidos por keyset no id, cada um na sua transação: nenhuma conexão fica
+	 * presa enquanto o cliente lê no ritmo dele.
+	 *
+	 * O timeout (dscatalog.export.timeout) vale só para esta requisição: o
+	 * interceptor é registrado no WebAsyncManager dela e ajusta o timeout antes do
+	 * processamento assíncrono começar.
+	 **/
+	@GetMapping(value = "/export", produces = "application/x-ndjson")
+	public ResponseEntity<StreamingResponseBody> export(WebRequest request) {
+		WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ExportTimeout.class.getName(),
+				new ExportTimeout(exportTimeout.toMillis()));
+
+		ObjectWriter writer = objectMapper.writerFor(ProductDTO.class);
+
+		StreamingResponseBody body = out -> {
+			long afterId = 0L;
+			List<ProductDTO> batch;
+			do {
+				batch = service.findExportBatch(afterId, EXPORT_BATCH_SIZE);
+				for (ProductDTO dto : batch) {
+					out.write(writer.writeValueAsBytes(dto));
+					out.write('\n');
+					afterId = dto.getId();
+				}
+				out.flush();
+			} while (batch.size() == EXPORT_BATCH_SIZE);
+		};
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> findById(@PathVariable Long id) { // @PathVariable - associa a variavel da rota
+	public ResponseEntity<ProductDTO> findById(@PathVariable Long id, WebRequest request) { // @PathVariable - associa a variavel da rota
 																			// com o parâmetro
+		if (notModified(request, service.findVersionById(id))) {
+			return null;
+		}
 		ProductDTO prodDto = service.findById(id);
 		return ResponseEntity.ok().body(prodDto);
 	}
@@ -73,6 +208,28 @@ public class ProductResource {
 
 	}
 
+	/**
+	 * Cadastro em lote: recebe uma lista de produtos e insere todos numa transação
+	 * só, em JDBC batch. Devolve os produtos criados, já com o id, na mesma ordem
+	 * em que vieram. O @Valid dentro da lista só é aplicado porque o controller tem
+	 * o @Validated; um produto inválido gera ConstraintViolationException (400).
+	 **/
+	@PostMapping(value = "/batch")
+	public ResponseEntity<List<ProductDTO>> insertAll(@RequestBody List<@Valid ProductDTO> dtos) {
+		List<ProductDTO> created = service.insertAll(dtos);
+		return ResponseEntity.status(HttpStatus.CREATED).body(created);
+	}
+
+	/**
+	 * Alteração em massa por filtro e/ou lista de ids, por exemplo +5% em todos os
+	 * Eletrônicos, em vez de um PUT por produto. Devolve quantos produtos foram
+	 * alterados ou apagados.
+	 **/
+	@PostMapping(value = "/bulk")
+	public ResponseEntity<ProductBulkResultDTO> bulk(@RequestBody ProductBulkDTO dto) {
+		return ResponseEntity.ok().body(service.bulk(dto));
+	}
+
 	@PutMapping(value = "/{id}")
 	public ResponseEntity<ProductDTO> update(@Valid @PathVariable Long id, @RequestBody ProductDTO prodDto) {
 		prodDto = service.update(id, prodDto);
@@ -86,4 +243,31 @@ public class ProductResource {
 		return ResponseEntity.noContent().build();
 	}
 
+	/** Também coloca o ETag e o Last-Modified (quando existe) na resposta, seja 200 ou 304 **/
+	private boolean notModified(WebRequest request, ResourceVersion version) {
+		if (version.getLastModified() == null) {
+			return request.checkNotModified(version.getETag());
+		}
+		return request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli());
+	}
+
+	private boolean expandCategories(String expand) {
+		return Arrays.asList(expand.split(",")).contains("categories");
+	}
+
+	/** Troca o timeout da requisição assíncrona antes do startAsync **/
+	private static class ExportTimeout implements CallableProcessingInterceptor {
+
+		private final long timeoutMillis;
+
+		ExportTimeout(long timeoutMillis) {
+			this.timeoutMillis = timeoutMillis;
+		}
+
+		@Override
+		public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+			((AsyncWebRequest) request).setTimeout(timeoutMillis);
+		}
+	}
+
 }
@@ -0,0 +1,232 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.validation.DataBinder;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.repositories.ReactiveCatalogRepository;
+import com.devsuperior.dscatalog.services.ProductCursor;
+import com.devsuperior.dscatalog.services.ProductSearchIndex;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Endpoints de leitura da pilha reativa (ReactiveReadConfig). Aceitam os mesmos
+ * parâmetros da API servlet (page, size, sort=propriedade,direção, os filtros do
+ * ProductFilterDTO, expand, count e after) e devolvem o mesmo JSON: Page, Slice
+ * ou CursorPageDTO de ProductDTO, Page de CategoryDTO, ou o ProductDTO com as
+ * categorias. Nenhuma thread fica parada esperando o banco.
+ **/
+public class ReactiveCatalogHandler {
+
+	/** Mesmos padrões do Spring Data Web na API servlet **/
+	private static final int DEFAULT_PAGE_SIZE = 20;
+	private static final int MAX_PAGE_SIZE = 2000;
+
+	/** Converte categoryId=1,3 e as datas ISO do ProductFilterDTO, como o binder do Spring MVC **/
+	private static final DefaultFormattingConversionService CONVERSIONS = new DefaultFormattingConversionService();
+
+	private final ReactiveCatalogRepository repository;
+	private final ProductSearchIndex searchIndex;
+
+	public ReactiveCatalogHandler(ReactiveCatalogRepository repository, ProductSearchIndex searchIndex) {
+		this.repository = repository;
+		this.searchIndex = searchIndex;
+	}
+
+	/**
+	 * Mesmas regras do ProductResource: com ?after a listagem é por cursor (e sem
+	 * filtros); com ?count=false e sem filtros volta um Slice, sem o COUNT(*); nos
+	 * outros casos volta a Page, com as categorias quando ?expand=categories.
+	 **/
+	public Mono<ServerResponse> findProducts(ServerRequest request) {
+		return Mono.fromCallable(() -> filter(request))
+				.flatMap(filter -> {
+					PageRequest pageable = pageRequest(request);
+					Optional<String> after = request.queryParam("after");
+					if (after.isPresent()) {
+						if (!filter.isEmpty()) {
+							throw new InvalidParameterException("Filtros não são suportados na paginação por cursor");
+						}
+						return findProductsAfter(after.get(), pageable)
+								.flatMap(page -> ServerResponse.ok().bodyValue(page));
+					}
+					boolean count = !"false".equals(request.queryParam("count").orElse(""));
+					if (!count && filter.isEmpty()) {
+						return findProductsSliced(pageable).flatMap(slice -> ServerResponse.ok().bodyValue(slice));
+					}
+					boolean expand = count && request.queryParam("expand")
+							.map(expandParam -> Arrays.asList(expandParam.split(",")).contains("categories"))
+							.orElse(false);
+					return findProductsPaged(filter, pageable, expand)
+							.flatMap(page -> ServerResponse.ok().bodyValue(page));
+				})
+				.onErrorResume(InvalidParameterException.class, e -> ServerResponse.badRequest().build());
+	}
+
+	/**
+	 * Busca textual, como o GET /products/search da API servlet: o
+	 * ProductSearchIndex (em memória) resolve a busca e a ordem de relevância, e o
+	 * banco só é lido para os produtos da página pedida.
+	 **/
+	public Mono<ServerResponse> searchProducts(ServerRequest request) {
+		return Mono.fromCallable(() -> pageRequest(request))
+				.flatMap(pageable -> {
+					Page<Long> ids = searchIndex.search(request.queryParam("q").orElse(""), pageable);
+					if (ids.isEmpty()) {
+						return Mono.just(new PageImpl<ProductDTO>(List.of(), pageable, ids.getTotalElements()));
+					}
+					return repository.findProductsByIds(ids.getContent()).collectMap(ProductDTO::getId)
+							.map(byId -> new PageImpl<>(ids.getContent().stream().map(byId::get)
+									.filter(Objects::nonNull).collect(Collectors.toList()), pageable,
+									ids.getTotalElements()));
+				})
+				.flatMap(page -> ServerResponse.ok().bodyValue(page))
+				.onErrorResume(InvalidParameterException.class, e -> ServerResponse.badRequest().build());
+	}
+
+	public Mono<ServerResponse> findProductById(ServerRequest request) {
+		Long id;
+		try {
+			id = Long.valueOf(request.pathVariable("id"));
+		} catch (NumberFormatException e) {
+			return ServerResponse.badRequest().build();
+		}
+		return repository.findProductById(id)
+				.flatMap(dto -> repository.findCategoriesByProductId(id).collectList().map(categories -> {
+					dto.getCategories().addAll(categories);
+					return dto;
+				}))
+				.flatMap(dto -> ServerResponse.ok().bodyValue(dto))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	public Mono<ServerResponse> findCategories(ServerRequest request) {
+		return Mono.fromCallable(() -> pageRequest(request))
+				.flatMap(pageable -> repository
+						.findCategories(pageable.getOffset(), pageable.getPageSize(), pageable.getSort()).collectList()
+						.zipWith(repository.countCategories())
+						.map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2())))
+				.flatMap(page -> ServerResponse.ok().bodyValue(page))
+				.onErrorResume(InvalidParameterException.class, e -> ServerResponse.badRequest().build());
+	}
+
+	private Mono<Page<ProductDTO>> findProductsPaged(ProductFilterDTO filter, Pageable pageable, boolean expand) {
+		return repository.findProducts(filter, pageable.getOffset(), pageable.getPageSize(), pageable.getSort())
+				.collectList()
+				.flatMap(content -> expand ? addCategories(content) : Mono.just(content))
+				.zipWith(repository.countProducts(filter))
+				.map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+	}
+
+	/** Um produto a mais na consulta diz se existe próxima página, sem o COUNT(*) **/
+	private Mono<SliceImpl<ProductDTO>> findProductsSliced(Pageable pageable) {
+		int size = pageable.getPageSize();
+		return repository.findProducts(new ProductFilterDTO(), pageable.getOffset(), size + 1, pageable.getSort())
+				.collectList()
+				.map(content -> content.size() > size ? new SliceImpl<>(content.subList(0, size), pageable, true)
+						: new SliceImpl<>(content, pageable, false));
+	}
+
+	/** Mesmas regras do ProductService.findAllKeyset, com o mesmo formato de cursor **/
+	private Mono<CursorPageDTO<ProductDTO>> findProductsAfter(String after, Pageable pageable) {
+		ProductCursor cursor = after.isBlank() ? null : ProductCursor.decode(after);
+
+		Sort.Order order = pageable.getSort().stream().findFirst()
+				.orElse(cursor != null ? cursor.toOrder() : Sort.Order.asc("id"));
+
+		if (!ProductCursor.SORTABLE.contains(order.getProperty())) {
+			throw new InvalidParameterException("Ordenação não suportada na paginação por cursor: " + order.getProperty());
+		}
+		if (cursor != null && !cursor.matches(order)) {
+			throw new InvalidParameterException("O cursor foi gerado com outra ordenação");
+		}
+
+		int size = pageable.getPageSize();
+		return repository.findProductsAfter(order.getProperty(), order.getDirection(),
+				cursor == null ? null : cursor.getLastValue(), cursor == null ? null : cursor.getLastId(), size + 1)
+				.collectList()
+				.map(list -> {
+					if (list.size() <= size) {
+						return new CursorPageDTO<>(list, size, null);
+					}
+					List<ProductDTO> content = list.subList(0, size);
+					return new CursorPageDTO<>(content, size,
+							ProductCursor.after(order, content.get(size - 1)).encode());
+				});
+	}
+
+	/** Categorias da página inteira numa consulta só, como o ProductService.addCategories **/
+	private Mono<List<ProductDTO>> addCategories(List<ProductDTO> content) {
+		if (content.isEmpty()) {
+			return Mono.just(content);
+		}
+		List<Long> ids = content.stream().map(ProductDTO::getId).collect(Collectors.toList());
+		return repository.findCategoriesByProductIds(ids).map(byProduct -> {
+			for (ProductDTO dto : content) {
+				dto.getCategories().addAll(byProduct.getOrDefault(dto.getId(), List.of()));
+			}
+			return content;
+		});
+	}
+
+	/** Preenche o ProductFilterDTO com os parâmetros da query, pelos setters, como o Spring MVC faz no ProductResource **/
+	private static ProductFilterDTO filter(ServerRequest request) {
+		MutablePropertyValues values = new MutablePropertyValues();
+		request.queryParams().forEach((name, list) -> values.add(name, list.size() == 1 ? list.get(0) : list));
+
+		ProductFilterDTO filter = new ProductFilterDTO();
+		DataBinder binder = new DataBinder(filter);
+		binder.setConversionService(CONVERSIONS);
+		binder.bind(values);
+		if (binder.getBindingResult().hasErrors()) {
+			throw new InvalidParameterException("Parâmetro inválido: " + binder.getBindingResult().getFieldError().getField());
+		}
+		return filter;
+	}
+
+	private static PageRequest pageRequest(ServerRequest request) {
+		int page = intParam(request, "page").orElse(0);
+		int size = intParam(request, "size").orElse(DEFAULT_PAGE_SIZE);
+		if (page < 0 || size < 1) {
+			throw new InvalidParameterException("Página ou tamanho inválido");
+		}
+
+		Sort sort = Sort.unsorted();
+		for (String param : request.queryParams().getOrDefault("sort", List.of())) {
+			String[] parts = param.split(",");
+			Sort.Direction direction = parts.length > 1
+					? Sort.Direction.fromOptionalString(parts[1]).orElse(Sort.Direction.ASC)
+					: Sort.Direction.ASC;
+			sort = sort.and(Sort.by(direction, parts[0]));
+		}
+		return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), sort);
+	}
+
+	private static Optional<Integer> intParam(ServerRequest request, String name) {
+		try {
+			return request.queryParam(name).map(Integer::valueOf);
+		} catch (NumberFormatException e) {
+			throw new InvalidParameterException("Parâmetro inválido: " + name);
+		}
+	}
+
+}
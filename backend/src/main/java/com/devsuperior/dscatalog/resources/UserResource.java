@@ -7,6 +7,7 @@ import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -40,6 +41,16 @@ public class UserResource {
 		return ResponseEntity.ok().body(list);
 	}
 
+	/**
+	 * Com ?count=false a listagem volta como Slice: sem totalElements/totalPages,
+	 * só com o hasNext, e o banco não roda o SELECT COUNT(*).
+	 **/
+	@GetMapping(params = "count=false")
+	public ResponseEntity<Slice<UserDTO>> findAllSliced(Pageable pageable) {
+		Slice<UserDTO> list = service.findAllSliced(pageable);
+		return ResponseEntity.ok().body(list);
+	}
+
 	@GetMapping(value = "/{id}")
 	public ResponseEntity<UserDTO> findById(@PathVariable Long id) { // @PathVariable - associa a variavel da rota
 		UserDTO dto = service.findById(id);
@@ -1,16 +1,24 @@
 package com.devsuperior.dscatalog.resources.exceptions;
 
 import java.time.Instant;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolationException;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
+import com.devsuperior.dscatalog.services.exceptions.UnauthorizedException;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
 
 /**
  * Essa anotação permite que essa classe intercepte alguma exceção que aconteça
@@ -56,5 +64,102 @@ public class ResourceExceptionHandler {
 		err.setPath(request.getRequestURI());
 		return ResponseEntity.status(status).body(err);
 	}
+	
+	@ExceptionHandler(InvalidParameterException.class) 
+	public ResponseEntity<StandardError> invalidParameter(InvalidParameterException e, HttpServletRequest request) {
+		
+		HttpStatus status = HttpStatus.BAD_REQUEST;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Parâmetro inválido");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}
+
+	/**
+	 * Outra gravação alterou o produto (@Version) entre a leitura e o UPDATE. Se o
+	 * cliente mandou If-Match, a condição dele não vale mais (412); sem If-Match é
+	 * um conflito comum (409). Nos dois casos é só ler de novo e repetir.
+	 **/
+	@ExceptionHandler(OptimisticLockingFailureException.class) 
+	public ResponseEntity<StandardError> optimisticLocking(OptimisticLockingFailureException e, HttpServletRequest request) {
+		
+		HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) == null ? HttpStatus.CONFLICT
+				: HttpStatus.PRECONDITION_FAILED;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Alteração concorrente");
+		err.setMessage("O recurso foi alterado por outra requisição; leia de novo e repita a operação");
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}
+
+	@ExceptionHandler(UnprocessableEntityException.class) 
+	public ResponseEntity<StandardError> unprocessableEntity(UnprocessableEntityException e, HttpServletRequest request) {
+		
+		HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Entidade não processável");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}
+
+	@ExceptionHandler(ServiceUnavailableException.class) 
+	public ResponseEntity<StandardError> serviceUnavailable(ServiceUnavailableException e, HttpServletRequest request) {
+		
+		HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Serviço indisponível");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+	}
+
+	@ExceptionHandler(UnauthorizedException.class) 
+	public ResponseEntity<StandardError> unauthorized(UnauthorizedException e, HttpServletRequest request) {
+		
+		HttpStatus status = HttpStatus.UNAUTHORIZED;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Não autorizado");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}
+
+	/**
+	 * Bean Validation nos parâmetros de um controller com @Validated (por exemplo
+	 * a lista do POST /products/batch): todas as violações vão na mensagem, com o
+	 * caminho de cada uma (insertAll.dtos[3].name: Campo obrigatório).
+	 **/
+	@ExceptionHandler(ConstraintViolationException.class) 
+	public ResponseEntity<StandardError> constraintViolation(ConstraintViolationException e, HttpServletRequest request) {
+		
+		HttpStatus status = HttpStatus.BAD_REQUEST;
+		
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Parâmetro inválido");
+		err.setMessage(e.getConstraintViolations().stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage()).sorted()
+				.collect(Collectors.joining(", ")));
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}
 
 }
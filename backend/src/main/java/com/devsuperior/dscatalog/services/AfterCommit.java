@@ -0,0 +1,29 @@
+package com.devsuperior.dscatalog.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Executa uma ação só depois que a transação atual for confirmada (commit). É
+ * usado pelos services para atualizar caches e estruturas em memória: se a
+ * transação der rollback, nada muda. Fora de uma transação a ação roda na hora.
+ **/
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	public static void run(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.devsuperior.dscatalog.dto.CredentialsDTO;
+import com.devsuperior.dscatalog.dto.TokenDTO;
+import com.devsuperior.dscatalog.services.exceptions.UnauthorizedException;
+
+/**
+ * Login: confere email e senha e emite o token de acesso. O usuário vem do
+ * UserLookupCache e a senha é conferida no pool do PasswordHasher, então um
+ * login repetido não vai no banco e o BCrypt não roda nas threads do Tomcat.
+ **/
+@Service
+public class AuthService {
+
+	@Autowired
+	private UserLookupCache userLookupCache;
+
+	@Autowired
+	private PasswordHasher passwordHasher;
+
+	@Autowired
+	private TokenService tokenService;
+
+	/**
+	 * Hash de uma senha aleatória que ninguém conhece, gerado na subida com o
+	 * mesmo custo dos hashes novos. Serve só para o login de um email que não
+	 * existe também rodar o BCrypt.
+	 **/
+	private String dummyHash;
+
+	@PostConstruct
+	void init() {
+		dummyHash = passwordHasher.encode(UUID.randomUUID().toString());
+	}
+
+	/**
+	 * A senha é conferida mesmo quando o email não existe (contra o dummyHash):
+	 * sem isso a resposta para um email desconhecido voltava sem o BCrypt, bem mais
+	 * rápido, e o tempo de resposta dizia quais emails estão cadastrados.
+	 **/
+	public TokenDTO login(CredentialsDTO credentials) {
+		Optional<AuthenticatedUser> user = userLookupCache.findByEmail(credentials.getEmail());
+		String hash = user.map(AuthenticatedUser::getPassword).orElse(dummyHash);
+		boolean matches = passwordHasher.matches(credentials.getPassword(), hash);
+		if (user.isEmpty() || !matches) {
+			throw new UnauthorizedException("Email ou senha inválidos");
+		}
+
+		return new TokenDTO(tokenService.issue(user.get()), tokenService.getTtl().getSeconds());
+	}
+
+}
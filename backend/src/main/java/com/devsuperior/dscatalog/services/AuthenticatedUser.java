@@ -0,0 +1,40 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+
+/**
+ * O mínimo de um usuário que a autenticação precisa: id, email, hash da senha e
+ * os perfis (authorities). Imutável, para poder ficar no UserLookupCache e ser
+ * lido por várias requisições ao mesmo tempo.
+ **/
+public final class AuthenticatedUser {
+
+	private final Long id;
+	private final String email;
+	private final String password;
+	private final List<String> authorities;
+
+	public AuthenticatedUser(Long id, String email, String password, List<String> authorities) {
+		this.id = id;
+		this.email = email;
+		this.password = password;
+		this.authorities = List.copyOf(authorities);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public List<String> getAuthorities() {
+		return authorities;
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Ids de todas as categorias que existem, em memória. São poucas e quase nunca
+ * mudam, então o ProductService consegue validar as categorias de um produto sem
+ * ir no banco. O CategoryServices carrega o registro na subida da aplicação e o
+ * atualiza a cada insert/delete de categoria.
+ *
+ * Uma categoria criada por outra instância da aplicação não aparece aqui até
+ * alguém perguntar por ela: quem usa o registro confere no banco os ids que não
+ * encontrou e registra os que existirem (ver ProductService.resolveCategories).
+ * Uma categoria apagada por outra instância continua aqui até a gravação do
+ * produto falhar na chave estrangeira; aí o ProductService tira os ids do
+ * registro e responde 422 (ver ProductService.categoriesRemoved).
+ **/
+@Component
+public class CategoryRegistry {
+
+	/**
+	 * Conjunto imutável, trocado inteiro a cada alteração (copy-on-write): quem lê
+	 * nunca vê o registro pela metade, nem no meio de um load. As escritas são
+	 * raras (insert/delete de categoria), então copiar o conjunto sai barato.
+	 **/
+	private volatile Set<Long> ids = Set.of();
+
+	/** Troca todo o conteúdo do registro pelos ids informados **/
+	public synchronized void load(Collection<Long> categoryIds) {
+		ids = Set.copyOf(categoryIds);
+	}
+
+	public void add(Long categoryId) {
+		addAll(List.of(categoryId));
+	}
+
+	public synchronized void addAll(Collection<Long> categoryIds) {
+		Set<Long> copy = new HashSet<>(ids);
+		copy.addAll(categoryIds);
+		ids = Set.copyOf(copy);
+	}
+
+	public void remove(Long categoryId) {
+		removeAll(List.of(categoryId));
+	}
+
+	public synchronized void removeAll(Collection<Long> categoryIds) {
+		Set<Long> copy = new HashSet<>(ids);
+		copy.removeAll(categoryIds);
+		ids = Set.copyOf(copy);
+	}
+
+	/** Os ids da lista que não estão no registro, na ordem em que vieram **/
+	public List<Long> unknown(Collection<Long> categoryIds) {
+		Set<Long> current = ids;
+		List<Long> unknown = new ArrayList<>();
+		for (Long id : categoryIds) {
+			if (!current.contains(id)) {
+				unknown.add(id);
+			}
+		}
+		return unknown;
+	}
+
+}
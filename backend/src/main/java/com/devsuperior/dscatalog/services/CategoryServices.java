@@ -1,20 +1,25 @@
 package com.devsuperior.dscatalog.services;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.repositories.projections.CategoryVersionProjection;
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
@@ -26,6 +31,9 @@ import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 @Service
 public class CategoryServices {
 
+	/** Região do PageCountCache com os totais das listagens de categories **/
+	public static final String COUNT_REGION = "categories";
+
 	/**
 	 * Para acessar as categorias no banco, preciso que meu CategoryService tenha
 	 * uma dependência com o CategoryRepository E preciso anotar o
@@ -39,6 +47,19 @@ public class CategoryServices {
 	@Autowired
 	private CategoryRepository repository;
 
+	@Autowired
+	private PageCountCache countCache;
+
+	@Autowired
+	private CategoryRegistry registry;
+
+	/** Carrega os ids das categorias no CategoryRegistry assim que a aplicação sobe **/
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void loadRegistry() {
+		registry.load(repository.findAllIds());
+	}
+
 	/**
 	 * Transactional= quando alguma operação envolve transação com o banco, podemos
 	 * fazer a anotação @Transactional, isso faz com que a transação só ocorra se o
@@ -50,7 +71,13 @@ public class CategoryServices {
 	 **/
 	@Transactional(readOnly = true)
 	public Page<CategoryDTO> findAllPaged(Pageable pageable) {
-		Page<Category> list = repository.findAll(pageable);
+		/**
+		 * O total da listagem vem do PageCountCache quando possível, assim o SELECT
+		 * COUNT(*) só roda quando o total ainda não é conhecido ou foi invalidado por
+		 * alguma gravação.
+		 **/
+		Page<CategoryDTO> list = countCache.findPage(COUNT_REGION, "", pageable,
+				p -> repository.findSliceProjected(p).getContent(), p -> repository.findAllProjected(p));
 
 		/**
 		 * Como a camada controladora não pode ter acesso à camada de entidade Category,
@@ -76,8 +103,38 @@ public class CategoryServices {
 		 * converter de volta em uma lista com o collectors.tolist().
 		 **/
 
-		return list.map(x -> new CategoryDTO(x));
+		/**
+		 * Hoje esse map não é mais necessário: o repository já devolve os CategoryDTO
+		 * prontos (projeção), sem passar pela entidade Category.
+		 **/
+
+		return list;
+
+	}
+
+	/**
+	 * Listagem sem o total: o cliente só fica sabendo se existe próxima página
+	 * (hasNext), e em troca o banco não precisa rodar o SELECT COUNT(*).
+	 **/
+	@Transactional(readOnly = true)
+	public Slice<CategoryDTO> findAllSliced(Pageable pageable) {
+		countCache.countSkipped(COUNT_REGION);
+		return repository.findSliceProjected(pageable);
+	}
+
+	/** ETag e Last-Modified do GET /categories/{id}, sem hidratar a entidade **/
+	@Transactional(readOnly = true)
+	public ResourceVersion findVersionById(Long id) {
+		CategoryVersionProjection version = repository.findVersionById(id)
+				.orElseThrow(() -> new ResourceNotFoundException("Resultado não encontrado :("));
+
+		Instant lastModified = ResourceVersion.latest(version.getCreatedAt(), version.getUpdatedAt());
+		return ResourceVersion.of(Long.toString(ResourceVersion.micros(lastModified)), lastModified);
+	}
 
+	/** ETag das listagens de categorias, da geração da região, sem ir no banco **/
+	public ResourceVersion findListVersion() {
+		return ResourceVersion.ofRegions(countCache, COUNT_REGION);
 	}
 
 	@Transactional(readOnly = true)
@@ -112,6 +169,11 @@ public class CategoryServices {
 		Category entity = new Category();
 		entity.setName(catDto.getName());
 		entity = repository.save(entity); // o save retorna uma referência para a entidade salva
+		Long id = entity.getId();
+		AfterCommit.run(() -> {
+			registry.add(id);
+			countCache.invalidate(COUNT_REGION);
+		});
 
 		return new CategoryDTO(entity);
 	}
@@ -122,6 +184,7 @@ public class CategoryServices {
 			Category entity = repository.getOne(id);
 			entity.setName(catDto.getName());
 			entity = repository.save(entity);
+			AfterCommit.run(() -> countCache.invalidate(COUNT_REGION));
 			return new CategoryDTO(entity);
 
 		} catch (EntityNotFoundException e) {
@@ -132,6 +195,8 @@ public class CategoryServices {
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			registry.remove(id);
+			countCache.invalidate(COUNT_REGION);
 		} catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não existe " + id);
 
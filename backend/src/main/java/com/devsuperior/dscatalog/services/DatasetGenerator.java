@@ -0,0 +1,395 @@
+package com.devsuperior.dscatalog.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gerador de catálogo sintético para testes de escala, ligado com o profile
+ * dataset (ver application-dataset.properties). Roda na subida, antes dos
+ * índices e registros em memória serem carregados (ApplicationReadyEvent), e
+ * acrescenta ao banco (H2 ou Postgres) dscatalog.dataset.categories categorias,
+ * dscatalog.dataset.products produtos com os vínculos de categoria e
+ * dscatalog.dataset.users usuários com os perfis.
+ *
+ * Os inserts são JDBC direto, em lotes de dscatalog.dataset.batch-size, com
+ * dscatalog.dataset.threads threads, cada uma gravando e commitando um bloco de
+ * dscatalog.dataset.chunk-size linhas. Cada bloco tem o seu gerador aleatório,
+ * derivado da semente (dscatalog.dataset.seed) e do número do bloco: com a mesma
+ * semente e o mesmo banco de partida, os dados gerados são sempre os mesmos, em
+ * qualquer ordem que as threads rodem.
+ *
+ * Distribuições: a categoria principal do produto segue uma Zipf (poucas
+ * categorias concentram a maior parte dos produtos), 70% dos produtos têm 1
+ * categoria, 25% têm 2 e 5% têm 3; o preço é log-normal com mediana 150; a data
+ * é uniforme nos 5 anos antes de 2021-06-01; todo usuário é OPERATOR e 5% são
+ * também ADMIN.
+ **/
+@Component
+@Profile("dataset")
+public class DatasetGenerator implements ApplicationRunner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DatasetGenerator.class);
+
+	/** Mesma senha (123456) dos usuários do import.sql, já em BCrypt: gerar um hash por usuário levaria horas **/
+	private static final String PASSWORD = "$2a$10$eACCYoNOHEqXve8aIWT8Nu3PkMXWBaOxJ9aORUYzfMQCbVBIhZ8tG";
+
+	/** Datas a partir de um instante fixo, e não de now(), para a semente bastar para repetir os dados **/
+	private static final Instant EPOCH = Instant.parse("2021-06-01T00:00:00Z");
+	private static final long DATE_RANGE_SECONDS = Duration.ofDays(5 * 365).getSeconds();
+
+	private static final String IMG_URL = "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/";
+
+	/** Um gerador aleatório por tabela, para mudar a quantidade de uma não mudar os dados das outras **/
+	private static final long PRODUCT_STREAM = 1;
+	private static final long USER_STREAM = 2;
+
+	private static final String[] CATEGORY_NAMES = { "Livros", "Eletrônicos", "Computadores", "Celulares", "Games",
+			"Esporte", "Casa", "Moda", "Beleza", "Brinquedos", "Ferramentas", "Automotivo", "Papelaria", "Pet Shop",
+			"Música", "Filmes", "Jardinagem", "Saúde", "Alimentos", "Bebês" };
+	private static final String[] PRODUCT_NOUNS = { "Notebook", "Smart TV", "PC Gamer", "Monitor", "Teclado", "Mouse",
+			"Headset", "Cadeira", "Livro", "Câmera", "Tablet", "Smartphone", "Impressora", "Roteador", "Console",
+			"Caixa de Som", "Relógio", "Mochila", "Tênis", "Cafeteira" };
+	private static final String[] PRODUCT_ADJECTIVES = { "Pro", "Max", "Ultra", "Lite", "Plus", "Mini", "Slim", "Turbo",
+			"Prime", "Neo" };
+	private static final String[] BRANDS = { "Alfa", "Beta", "Orion", "Vega", "Nova", "Atlas", "Zenit", "Delta" };
+	private static final String[] WORDS = { "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing",
+			"elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua",
+			"enim", "ad", "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi", "aliquip" };
+	private static final String[] FIRST_NAMES = { "Alex", "Maria", "Ana", "Bruno", "Carla", "Diego", "Elisa", "Felipe",
+			"Gabriela", "Heitor", "Isabela", "Joao", "Larissa", "Marcos", "Natalia", "Otavio", "Paula", "Rafael",
+			"Sofia", "Thiago" };
+	private static final String[] LAST_NAMES = { "Brown", "Green", "Silva", "Souza", "Oliveira", "Santos", "Lima",
+			"Costa", "Pereira", "Almeida", "Ferreira", "Rodrigues", "Gomes", "Martins", "Araujo", "Ribeiro" };
+
+	private final DataSource dataSource;
+	private final long products;
+	private final int categories;
+	private final long users;
+	private final long seed;
+	private final int threads;
+	private final int batchSize;
+	private final int chunkSize;
+
+	public DatasetGenerator(DataSource dataSource, @Value("${dscatalog.dataset.products:100000}") long products,
+			@Value("${dscatalog.dataset.categories:50}") int categories,
+			@Value("${dscatalog.dataset.users:1000}") long users, @Value("${dscatalog.dataset.seed:42}") long seed,
+			@Value("${dscatalog.dataset.threads:0}") int threads,
+			@Value("${dscatalog.dataset.batch-size:1000}") int batchSize,
+			@Value("${dscatalog.dataset.chunk-size:10000}") int chunkSize) {
+		this.dataSource = dataSource;
+		this.products = products;
+		this.categories = categories;
+		this.users = users;
+		this.seed = seed;
+		this.threads = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+		this.batchSize = batchSize;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		generate();
+	}
+
+	public void generate() throws SQLException, InterruptedException {
+		if (products > 0 && categories < 1) {
+			throw new IllegalStateException("dscatalog.dataset.categories precisa ser maior que zero para gerar produtos");
+		}
+		long start = System.nanoTime();
+
+		long categoryBase = maxId("tb_category");
+		long productBase = maxId("tb_product");
+		long userBase = maxId("tb_user");
+		long operatorRole = roleId("ROLE_OPERATOR");
+		long adminRole = roleId("ROLE_ADMIN");
+
+		insertCategories(categoryBase);
+		double[] popularity = zipf(categories);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> tasks = new ArrayList<>();
+			for (long from = 0; from < products; from += chunkSize) {
+				long chunkFrom = from;
+				long chunkTo = Math.min(from + chunkSize, products);
+				tasks.add(executor.submit(() -> {
+					insertProducts(productBase, categoryBase, popularity, chunkFrom, chunkTo);
+					return null;
+				}));
+			}
+			for (long from = 0; from < users; from += chunkSize) {
+				long chunkFrom = from;
+				long chunkTo = Math.min(from + chunkSize, users);
+				tasks.add(executor.submit(() -> {
+					insertUsers(userBase, operatorRole, adminRole, chunkFrom, chunkTo);
+					return null;
+				}));
+			}
+			for (Future<Void> task : tasks) {
+				task.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Falha ao gerar o catálogo sintético", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		restartIds(productBase + products + 1, categoryBase + categories + 1, userBase + users + 1);
+
+		long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+		LOG.info("Catálogo sintético gerado (semente {}): {} categorias, {} produtos, {} usuários em {} ms ({} produtos/s, {} threads)",
+				seed, categories, products, users, elapsedMillis, products * 1000 / elapsedMillis, threads);
+	}
+
+	private void insertCategories(long base) throws SQLException {
+		try (Connection conn = dataSource.getConnection()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement insert = conn
+					.prepareStatement("INSERT INTO tb_category (id, name, created_at) VALUES (?, ?, ?)")) {
+				for (int i = 0; i < categories; i++) {
+					String name = CATEGORY_NAMES[i % CATEGORY_NAMES.length];
+					insert.setLong(1, base + i + 1);
+					insert.setString(2, i < CATEGORY_NAMES.length ? name : name + " " + (i / CATEGORY_NAMES.length + 1));
+					insert.setTimestamp(3, Timestamp.from(EPOCH));
+					insert.addBatch();
+					if ((i + 1) % batchSize == 0) {
+						insert.executeBatch();
+					}
+				}
+				insert.executeBatch();
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private void insertProducts(long base, long categoryBase, double[] popularity, long from, long to)
+			throws SQLException {
+		SplittableRandom random = random(PRODUCT_STREAM, from);
+		try (Connection conn = dataSource.getConnection()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement product = conn.prepareStatement(
+					"INSERT INTO tb_product (id, name, description, price, img_url, date, version, updated_at) "
+							+ "VALUES (?, ?, ?, ?, ?, ?, 0, ?)");
+					PreparedStatement link = conn.prepareStatement(
+							"INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)")) {
+				for (long i = from; i < to; i++) {
+					long id = base + i + 1;
+					Timestamp date = Timestamp.from(EPOCH.minusSeconds(random.nextLong(DATE_RANGE_SECONDS)));
+					product.setLong(1, id);
+					product.setString(2, productName(random));
+					product.setString(3, text(random, 10 + random.nextInt(120)));
+					product.setDouble(4, price(random));
+					product.setString(5, IMG_URL + (random.nextInt(25) + 1) + "-big.jpg");
+					product.setTimestamp(6, date);
+					product.setTimestamp(7, date);
+					product.addBatch();
+
+					for (int category : productCategories(random, popularity)) {
+						link.setLong(1, id);
+						link.setLong(2, categoryBase + category + 1);
+						link.addBatch();
+					}
+
+					/** Os produtos vão antes dos vínculos, por causa da chave estrangeira **/
+					if ((i - from + 1) % batchSize == 0) {
+						product.executeBatch();
+						link.executeBatch();
+					}
+				}
+				product.executeBatch();
+				link.executeBatch();
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private void insertUsers(long base, long operatorRole, long adminRole, long from, long to) throws SQLException {
+		SplittableRandom random = random(USER_STREAM, from);
+		try (Connection conn = dataSource.getConnection()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement user = conn.prepareStatement(
+					"INSERT INTO tb_user (id, first_name, last_name, email, password) VALUES (?, ?, ?, ?, ?)");
+					PreparedStatement role = conn
+							.prepareStatement("INSERT INTO tb_user_role (user_id, role_id) VALUES (?, ?)")) {
+				for (long i = from; i < to; i++) {
+					long id = base + i + 1;
+					String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+					String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+					user.setLong(1, id);
+					user.setString(2, firstName);
+					user.setString(3, lastName);
+					/** O id no email garante que ele é único, inclusive rodando o gerador de novo no mesmo banco **/
+					user.setString(4, (firstName + "." + lastName + "." + id + "@dataset.dscatalog.com").toLowerCase());
+					user.setString(5, PASSWORD);
+					user.addBatch();
+
+					role.setLong(1, id);
+					role.setLong(2, operatorRole);
+					role.addBatch();
+					if (random.nextInt(100) < 5) {
+						role.setLong(1, id);
+						role.setLong(2, adminRole);
+						role.addBatch();
+					}
+
+					if ((i - from + 1) % batchSize == 0) {
+						user.executeBatch();
+						role.executeBatch();
+					}
+				}
+				user.executeBatch();
+				role.executeBatch();
+				conn.commit();
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Os ids foram gravados explicitamente, então a sequence dos produtos e as
+	 * colunas IDENTITY de categorias e usuários precisam andar até depois deles,
+	 * senão o próximo insert da aplicação colide com um id gerado aqui.
+	 **/
+	private void restartIds(long nextProduct, long nextCategory, long nextUser) throws SQLException {
+		try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+			boolean postgres = conn.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+			if (products > 0) {
+				statement.execute("ALTER SEQUENCE seq_product RESTART WITH " + nextProduct);
+			}
+			if (categories > 0) {
+				statement.execute(restartIdentity(postgres, "tb_category", nextCategory));
+			}
+			if (users > 0) {
+				statement.execute(restartIdentity(postgres, "tb_user", nextUser));
+			}
+		}
+	}
+
+	private static String restartIdentity(boolean postgres, String table, long next) {
+		return postgres ? "SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + (next - 1) + ")"
+				: "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next;
+	}
+
+	private long maxId(String table) throws SQLException {
+		try (Connection conn = dataSource.getConnection();
+				Statement statement = conn.createStatement();
+				ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+			result.next();
+			return result.getLong(1);
+		}
+	}
+
+	/** Id do perfil, criando o perfil se o banco ainda não tiver (Postgres vazio, sem o import.sql) **/
+	private long roleId(String authority) throws SQLException {
+		try (Connection conn = dataSource.getConnection()) {
+			try (PreparedStatement select = conn.prepareStatement("SELECT id FROM tb_role WHERE authority = ?")) {
+				select.setString(1, authority);
+				try (ResultSet result = select.executeQuery()) {
+					if (result.next()) {
+						return result.getLong(1);
+					}
+				}
+			}
+			try (PreparedStatement insert = conn.prepareStatement("INSERT INTO tb_role (authority) VALUES (?)",
+					new String[] { "id" })) {
+				insert.setString(1, authority);
+				insert.executeUpdate();
+				try (ResultSet keys = insert.getGeneratedKeys()) {
+					keys.next();
+					return keys.getLong(1);
+				}
+			}
+		}
+	}
+
+	private SplittableRandom random(long stream, long chunk) {
+		return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + stream * 0xC2B2AE3D27D4EB4FL + chunk);
+	}
+
+	/** Probabilidade acumulada de cada categoria numa Zipf de expoente 1 **/
+	private static double[] zipf(int n) {
+		double[] cumulative = new double[n];
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1.0 / (k + 1);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++) {
+			cumulative[k] /= sum;
+		}
+		return cumulative;
+	}
+
+	private static int[] productCategories(SplittableRandom random, double[] popularity) {
+		int roll = random.nextInt(100);
+		int count = Math.min(roll < 70 ? 1 : roll < 95 ? 2 : 3, popularity.length);
+		int[] result = new int[count];
+		int found = 0;
+		while (found < count) {
+			int index = Arrays.binarySearch(popularity, random.nextDouble());
+			int category = Math.min(index >= 0 ? index : -index - 1, popularity.length - 1);
+			boolean repeated = false;
+			for (int i = 0; i < found; i++) {
+				repeated |= result[i] == category;
+			}
+			if (!repeated) {
+				result[found++] = category;
+			}
+		}
+		return result;
+	}
+
+	/** Log-normal com mediana 150 (Box-Muller), em centavos, entre 1 e 50.000 **/
+	private static double price(SplittableRandom random) {
+		double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+		double price = Math.exp(Math.log(150) + gaussian);
+		return Math.min(50_000, Math.max(1, Math.round(price * 100) / 100.0));
+	}
+
+	private static String productName(SplittableRandom random) {
+		return PRODUCT_NOUNS[random.nextInt(PRODUCT_NOUNS.length)] + " "
+				+ BRANDS[random.nextInt(BRANDS.length)] + " "
+				+ PRODUCT_ADJECTIVES[random.nextInt(PRODUCT_ADJECTIVES.length)] + " " + (random.nextInt(999) + 1);
+	}
+
+	private static String text(SplittableRandom random, int words) {
+		StringBuilder text = new StringBuilder(words * 8);
+		for (int i = 0; i < words; i++) {
+			text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.append('.').toString();
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache dos totais (SELECT COUNT(*)) das listagens paginadas. Cada Page do
+ * Spring roda duas consultas, a da página e a do total, e em tabelas grandes o
+ * COUNT custa tanto quanto a página. Aqui o total fica guardado por região
+ * (products, categories, users) e por filtro, e os services invalidam a região
+ * sempre que gravam alguma coisa nela.
+ *
+ * O contador dscatalog.page.count mostra quantos COUNT foram executados
+ * (outcome=executed), quantos foram respondidos pelo cache (outcome=cache_hit)
+ * e quantos nem foram necessários porque o cliente pediu Slice
+ * (outcome=skipped).
+ **/
+@Component
+public class PageCountCache {
+
+	private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+	/** Sorteado na subida: a versão de uma instância não coincide com a de outra nem com a de antes do restart **/
+	private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+	private final MeterRegistry meterRegistry;
+	private final long ttlNanos;
+	private final int maxEntries;
+
+	public PageCountCache(MeterRegistry meterRegistry, @Value("${dscatalog.count-cache.ttl:60s}") Duration ttl,
+			@Value("${dscatalog.count-cache.max-entries:1000}") int maxEntries) {
+		this.meterRegistry = meterRegistry;
+		this.ttlNanos = ttl.toNanos();
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Se o total desse filtro está no cache, roda só a consulta do conteúdo e monta
+	 * a Page com o total guardado. Senão roda a consulta paginada normal (com o
+	 * COUNT) e guarda o total para as próximas requisições.
+	 **/
+	public <T> Page<T> findPage(String region, String filterKey, Pageable pageable,
+			Function<Pageable, List<T>> contentQuery, Function<Pageable, Page<T>> pageQuery) {
+
+		Region r = region(region);
+		long generation = r.generation.get();
+		Entry entry = r.counts.get(filterKey);
+
+		if (entry != null && entry.generation == generation && entry.expiresAt - System.nanoTime() > 0) {
+			r.cacheHit.increment();
+			return new PageImpl<>(contentQuery.apply(pageable), pageable, entry.total);
+		}
+
+		Page<T> page = pageQuery.apply(pageable);
+		r.executed.increment();
+
+		if (r.counts.size() >= maxEntries) {
+			r.counts.clear();
+		}
+		/**
+		 * O total vai guardado com a geração lida antes da consulta. Se alguém gravou
+		 * na região enquanto ela rodava, a geração já mudou e a leitura acima descarta
+		 * a entrada, mesmo que o put aconteça depois do invalidate. O merge não deixa
+		 * um total velho sobrescrever um de geração mais nova.
+		 **/
+		r.counts.merge(filterKey, new Entry(page.getTotalElements(), generation, System.nanoTime() + ttlNanos),
+				(current, candidate) -> current.generation > candidate.generation ? current : candidate);
+		return page;
+	}
+
+	/** Registra que a listagem foi atendida como Slice, sem COUNT **/
+	public void countSkipped(String region) {
+		region(region).skipped.increment();
+	}
+
+	/** Chamado pelos services depois de qualquer insert/update/delete na região **/
+	public void invalidate(String region) {
+		Region r = region(region);
+		r.generation.incrementAndGet();
+		r.counts.clear();
+	}
+
+	/**
+	 * Número que muda a cada invalidate da região. Outros caches podem guardá-lo
+	 * junto com o valor e descartar o valor quando ele mudar.
+	 **/
+	public long generation(String region) {
+		return region(region).generation.get();
+	}
+
+	/**
+	 * Versão das listagens das regiões, para o ETag, sem ir no banco: a época desta
+	 * instância, a janela de ttl atual e a geração de cada região, que os services
+	 * incrementam depois do commit de cada gravação. Gravações que não passam pelos
+	 * services desta instância (outra instância, SQL direto) não mudam a geração,
+	 * mas a janela muda a cada ttl: o ETag de uma listagem fica velho no máximo
+	 * pelo mesmo tempo que os totais guardados aqui.
+	 **/
+	public String version(String... regions) {
+		StringBuilder version = new StringBuilder(epoch).append('.').append(System.nanoTime() / Math.max(1, ttlNanos));
+		for (String region : regions) {
+			version.append('.').append(generation(region));
+		}
+		return version.toString();
+	}
+
+	private Region region(String name) {
+		return regions.computeIfAbsent(name, n -> new Region(n, meterRegistry));
+	}
+
+	private static class Region {
+		final AtomicLong generation = new AtomicLong();
+		final Map<String, Entry> counts = new ConcurrentHashMap<>();
+		final Counter executed;
+		final Counter cacheHit;
+		final Counter skipped;
+
+		Region(String name, MeterRegistry registry) {
+			executed = counter(registry, name, "executed");
+			cacheHit = counter(registry, name, "cache_hit");
+			skipped = counter(registry, name, "skipped");
+		}
+
+		private static Counter counter(MeterRegistry registry, String region, String outcome) {
+			return Counter.builder("dscatalog.page.count").description("COUNT queries of paged listings")
+					.tag("region", region).tag("outcome", outcome).register(registry);
+		}
+	}
+
+	private static class Entry {
+		final long total;
+		final long generation;
+		final long expiresAt;
+
+		Entry(long total, long generation, long expiresAt) {
+			this.total = total;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Gera o hash BCrypt das senhas fora das threads do Tomcat, num pool próprio com
+ * uma thread por núcleo e uma fila limitada. O BCrypt é caro de propósito (CPU
+ * pura), então uma rajada de cadastros hasheando direto nas threads de requisição
+ * ocupava todos os núcleos e travava as leituras do catálogo. Aqui no máximo um
+ * núcleo por thread do pool fica ocupado com hash; quando a fila enche, o
+ * cadastro volta na hora com 503 em vez de esperar.
+ *
+ * Métricas: dscatalog.password.hash (tempo de cada hash), dscatalog.password.hash.queue
+ * (hashes esperando na fila), dscatalog.password.hash.active (hashes rodando) e
+ * dscatalog.password.bcrypt.cost (custo escolhido na calibração).
+ **/
+@Component
+public class PasswordHasher {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PasswordHasher.class);
+
+	private final BCryptPasswordEncoder encoder;
+	private final ThreadPoolExecutor executor;
+	private final Timer latency;
+
+	public PasswordHasher(BCryptPasswordEncoder encoder, MeterRegistry meterRegistry,
+			@Value("${dscatalog.password.hash-threads:0}") int threads,
+			@Value("${dscatalog.password.hash-queue:64}") int queueCapacity) {
+		this.encoder = encoder;
+
+		int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+		this.latency = Timer.builder("dscatalog.password.hash").description("Time spent hashing one password")
+				.register(meterRegistry);
+		Gauge.builder("dscatalog.password.hash.queue", executor, e -> e.getQueue().size())
+				.description("Password hashes waiting for a hashing thread").register(meterRegistry);
+		Gauge.builder("dscatalog.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+				.description("Password hashes running right now").register(meterRegistry);
+		int cost = costOf(encoder.encode("cost"));
+		Gauge.builder("dscatalog.password.bcrypt.cost", () -> cost)
+				.description("BCrypt cost chosen by the startup calibration").register(meterRegistry);
+	}
+
+	/**
+	 * Hash da senha, calculado no pool. A thread que chamou espera o resultado sem
+	 * gastar CPU. Se a fila estiver cheia, lança ServiceUnavailableException (503).
+	 **/
+	public String encode(CharSequence rawPassword) {
+		return run(() -> encoder.encode(rawPassword));
+	}
+
+	/** Confere a senha contra o hash (login), no mesmo pool e com a mesma fila do encode **/
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> encoder.matches(rawPassword, encodedPassword));
+	}
+
+	private <T> T run(Callable<T> task) {
+		Future<T> result;
+		try {
+			result = executor.submit(() -> latency.recordCallable(task));
+		} catch (RejectedExecutionException e) {
+			throw new ServiceUnavailableException("Muitas requisições ao mesmo tempo, tente novamente em instantes");
+		}
+
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ServiceUnavailableException("Requisição interrompida, tente novamente");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Falha ao calcular o hash da senha", e.getCause());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Maior custo do BCrypt (entre minCost e maxCost) cujo hash leva no máximo
+	 * target nesta máquina. Mede o custo mínimo e extrapola: cada +1 no custo dobra
+	 * o tempo. Se nem o custo mínimo cabe no target, fica com o mínimo (segurança
+	 * primeiro).
+	 **/
+	public static int calibrate(Duration target, int minCost, int maxCost) {
+		BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minCost);
+		probe.encode("calibration"); // aquecimento (JIT)
+
+		long start = System.nanoTime();
+		probe.encode("calibration");
+		long elapsed = Math.max(1, System.nanoTime() - start);
+
+		int cost = minCost;
+		while (cost < maxCost && elapsed * 2 <= target.toNanos()) {
+			elapsed *= 2;
+			cost++;
+		}
+		LOG.info("BCrypt cost {} (~{} ms per hash, target {} ms)", cost, elapsed / 1_000_000, target.toMillis());
+		return cost;
+	}
+
+	/** O custo fica gravado no próprio hash: $2a$NN$... **/
+	private static int costOf(String hash) {
+		return Integer.parseInt(hash.substring(4, 6));
+	}
+
+	private static ThreadFactory threadFactory() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
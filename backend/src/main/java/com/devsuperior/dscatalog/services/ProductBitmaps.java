@@ -0,0 +1,37 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.BitSet;
+
+/**
+ * Os índices em memória (ProductCategoryIndex, ProductColumnIndex e o matchAll
+ * do ProductSearchIndex) usam o id do produto como posição de um BitSet, que é
+ * um int. Um produto com id fora dessa faixa não entra nos bitmaps: o índice
+ * fica marcado como incompleto e o ProductService passa a filtrar pelo banco.
+ **/
+final class ProductBitmaps {
+
+	private ProductBitmaps() {
+	}
+
+	static boolean fits(Long productId) {
+		return productId != null && productId >= 0 && productId <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Quantos bits estão ligados nos dois, sem criar BitSet: percorre o que tem
+	 * menos bits com nextSetBit e testa cada um no outro. O custo é proporcional
+	 * ao menor conjunto, não ao maior id.
+	 **/
+	static int intersectionCount(BitSet a, int aCardinality, BitSet b, int bCardinality) {
+		BitSet smaller = aCardinality <= bCardinality ? a : b;
+		BitSet larger = smaller == a ? b : a;
+		int count = 0;
+		for (int bit = smaller.nextSetBit(0); bit >= 0; bit = smaller.nextSetBit(bit + 1)) {
+			if (larger.get(bit)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.repositories.projections.ProductCategoryProjection;
+
+/**
+ * Índice em memória de quais produtos estão em cada categoria: um bitmap por
+ * categoria, onde o bit N ligado quer dizer que o produto de id N está nela.
+ * Filtrar por várias categorias vira um OR (qualquer uma) ou um AND (todas) de
+ * bitmaps, sem passar pela tb_product_category no banco.
+ *
+ * Os ids dos produtos são sequenciais, então o BitSet fica denso: um bit por
+ * produto, 125 KB por categoria para um milhão de produtos. Por isso é um
+ * BitSet simples e não um bitmap comprimido, que só compensaria com ids
+ * esparsos. Ids que não cabem num int ficam de fora e o índice passa a
+ * responder isComplete() = false.
+ *
+ * O índice é carregado na subida da aplicação e o ProductService o atualiza
+ * sempre que as categorias de um produto mudam. Leituras em paralelo, escritas
+ * exclusivas (lock de leitura/escrita).
+ **/
+@Component
+public class ProductCategoryIndex {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** id da categoria -> bitmap com os ids dos produtos **/
+	private final Map<Long, BitSet> products = new HashMap<>();
+
+	private volatile boolean complete = true;
+
+	/** Troca todo o conteúdo do índice pelos pares (produto, categoria) do stream **/
+	public void load(Stream<ProductCategoryProjection> rows) {
+		lock.writeLock().lock();
+		try {
+			products.clear();
+			complete = true;
+			rows.forEach(row -> {
+				if (fits(row.getProductId())) {
+					bitmap(row.getCategoryId()).set(row.getProductId().intValue());
+				}
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Substitui as categorias de um produto pelas informadas **/
+	public void update(Long productId, Collection<Long> categoryIds) {
+		if (!fits(productId)) {
+			return;
+		}
+		int bit = productId.intValue();
+		lock.writeLock().lock();
+		try {
+			products.values().forEach(bitmap -> bitmap.clear(bit));
+			categoryIds.forEach(categoryId -> bitmap(categoryId).set(bit));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (!ProductBitmaps.fits(productId)) {
+			return;
+		}
+		int bit = productId.intValue();
+		lock.writeLock().lock();
+		try {
+			products.values().forEach(bitmap -> bitmap.clear(bit));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids dos produtos que estão em todas as categorias (matchAll) ou em pelo menos
+	 * uma delas. O BitSet devolvido é uma cópia, quem chamou pode alterá-lo.
+	 **/
+	public BitSet match(Collection<Long> categoryIds, boolean matchAll) {
+		lock.readLock().lock();
+		try {
+			BitSet result = null;
+			for (Long categoryId : categoryIds) {
+				BitSet bitmap = products.getOrDefault(categoryId, new BitSet());
+				if (result == null) {
+					result = (BitSet) bitmap.clone();
+				} else if (matchAll) {
+					result.and(bitmap);
+				} else {
+					result.or(bitmap);
+				}
+			}
+			return result == null ? new BitSet() : result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Quantos dos produtos em ids estão em cada categoria (só as categorias com
+	 * pelo menos um). É a contagem do AND de bitmaps por categoria, sem ir no
+	 * banco e sem copiar nenhum bitmap (ProductBitmaps.intersectionCount).
+	 **/
+	public Map<Long, Integer> counts(BitSet ids) {
+		Map<Long, Integer> counts = new HashMap<>();
+		int candidates = ids.cardinality();
+		lock.readLock().lock();
+		try {
+			products.forEach((categoryId, bitmap) -> {
+				int count = ProductBitmaps.intersectionCount(bitmap, bitmap.cardinality(), ids, candidates);
+				if (count > 0) {
+					counts.put(categoryId, count);
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+		return counts;
+	}
+
+	private BitSet bitmap(Long categoryId) {
+		return products.computeIfAbsent(categoryId, id -> new BitSet());
+	}
+
+	/** Falso quando algum produto ficou de fora por causa do id **/
+	public boolean isComplete() {
+		return complete;
+	}
+
+	private boolean fits(Long productId) {
+		if (ProductBitmaps.fits(productId)) {
+			return true;
+		}
+		complete = false;
+		return false;
+	}
+
+}
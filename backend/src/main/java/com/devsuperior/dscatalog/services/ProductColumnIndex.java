@@ -0,0 +1,469 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.repositories.projections.ProductColumnsProjection;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Índice colunar em memória do preço e da data dos produtos. Cada coluna é um
+ * par de arrays primitivos ordenados pelo valor: long[] com o valor e int[] com
+ * o id do produto na mesma posição. Um filtro de faixa (minPrice/maxPrice,
+ * from/to) vira duas buscas binárias e uma varredura contígua, sem Double/Instant
+ * nem entidades, e sem range scan no banco. A mesma ordem serve para montar as
+ * páginas ordenadas por price ou date.
+ *
+ * Cada produto ocupa 12 bytes por coluna (8 do valor + 4 do id), ou seja cerca
+ * de 24 MB para as duas colunas por milhão de produtos. O total atual fica no
+ * gauge dscatalog.product.columns.memory.
+ *
+ * Um produto com id que não cabe num int não entra nas colunas, e o índice
+ * passa a responder isComplete() = false.
+ *
+ * As gravações do ProductService não reconstroem os arrays: o valor novo vai
+ * para um buffer pequeno e a posição antiga é marcada como obsoleta. Quando o
+ * buffer enche, ele é intercalado com os arrays (merge linear, sem reordenar e
+ * sem voltar no banco).
+ **/
+@Component
+public class ProductColumnIndex {
+
+	/** Quantas gravações ficam no buffer antes de serem intercaladas nos arrays **/
+	private static final int MAX_PENDING = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Column price = new Column();
+	private final Column date = new Column();
+	private volatile boolean complete = true;
+
+	public ProductColumnIndex(MeterRegistry meterRegistry) {
+		Gauge.builder("dscatalog.product.columns.memory", this, ProductColumnIndex::memoryBytes)
+				.description("Memory used by the in-memory price and date columns").baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	/** Troca todo o conteúdo das colunas pelas linhas do stream **/
+	public void load(Stream<ProductColumnsProjection> rows) {
+		lock.writeLock().lock();
+		try {
+			Column.Builder prices = new Column.Builder();
+			Column.Builder dates = new Column.Builder();
+			complete = true;
+			rows.forEach(row -> {
+				if (!fits(row.getId())) {
+					return;
+				}
+				int id = row.getId().intValue();
+				prices.add(id, row.getPrice() == null ? null : priceKey(row.getPrice()));
+				dates.add(id, row.getDate() == null ? null : dateKey(row.getDate()));
+			});
+			prices.buildInto(price);
+			dates.buildInto(date);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void update(Long productId, Double newPrice, Instant newDate) {
+		if (!fits(productId)) {
+			return;
+		}
+		int id = productId.intValue();
+		lock.writeLock().lock();
+		try {
+			price.put(id, newPrice == null ? null : priceKey(newPrice));
+			date.put(id, newDate == null ? null : dateKey(newDate));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (!ProductBitmaps.fits(productId)) {
+			return;
+		}
+		int id = productId.intValue();
+		lock.writeLock().lock();
+		try {
+			price.remove(id);
+			date.remove(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Ids dos produtos com min <= preço <= max. Um limite nulo fica em aberto **/
+	public BitSet priceRange(Double min, Double max) {
+		lock.readLock().lock();
+		try {
+			return price.range(min == null ? Long.MIN_VALUE : priceKey(min),
+					max == null ? Long.MAX_VALUE : priceKey(max));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Ids dos produtos com from <= data <= to. Um limite nulo fica em aberto **/
+	public BitSet dateRange(Instant from, Instant to) {
+		lock.readLock().lock();
+		try {
+			return date.range(from == null ? Long.MIN_VALUE : dateKey(from), to == null ? Long.MAX_VALUE : dateKey(to));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Verdadeiro quando o índice sabe montar páginas ordenadas por essa propriedade **/
+	public boolean isSortable(String property) {
+		return "price".equals(property) || "date".equals(property);
+	}
+
+	/**
+	 * Página dos ids (que estão em ids) ordenados por price ou date, desempatando
+	 * pelo id. Produtos sem valor na coluna vêm no fim, nas duas direções.
+	 **/
+	public List<Long> page(String property, BitSet ids, long offset, int size, boolean ascending) {
+		lock.readLock().lock();
+		try {
+			return ("price".equals(property) ? price : date).page(ids, offset, size, ascending);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Ids de todos os produtos: cada um tem uma entrada nas colunas, com valor ou nulo **/
+	public BitSet allIds() {
+		lock.readLock().lock();
+		try {
+			BitSet ids = date.range(Long.MIN_VALUE, Long.MAX_VALUE);
+			ids.or(date.missing);
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Histograma de preços dos produtos em ids, em faixas de largura bucketSize: a
+	 * chave é o início da faixa. Uma passada só pela coluna de preço, que já está
+	 * ordenada. Produtos sem preço não entram.
+	 **/
+	public Map<Double, Integer> priceHistogram(BitSet ids, double bucketSize) {
+		Map<Double, Integer> buckets = new TreeMap<>();
+		lock.readLock().lock();
+		try {
+			price.forEach(ids, key -> buckets.merge(Math.floor(priceValue(key) / bucketSize) * bucketSize, 1,
+					Integer::sum));
+		} finally {
+			lock.readLock().unlock();
+		}
+		return buckets;
+	}
+
+	public long memoryBytes() {
+		lock.readLock().lock();
+		try {
+			return price.memoryBytes() + date.memoryBytes();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Converte o double num long que ordena do mesmo jeito (inclusive negativos),
+	 * assim as duas colunas usam a mesma estrutura de long[].
+	 **/
+	static long priceKey(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	static double priceValue(long key) {
+		return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+	}
+
+	/** Microssegundos desde a época, a mesma precisão do TIMESTAMP do banco **/
+	static long dateKey(Instant value) {
+		return Math.addExact(Math.multiplyExact(value.getEpochSecond(), 1_000_000L), value.getNano() / 1_000);
+	}
+
+	/** Falso quando algum produto ficou de fora por causa do id **/
+	public boolean isComplete() {
+		return complete;
+	}
+
+	private boolean fits(Long productId) {
+		if (ProductBitmaps.fits(productId)) {
+			return true;
+		}
+		complete = false;
+		return false;
+	}
+
+	/**
+	 * Uma coluna: os arrays ordenados por (valor, id), o buffer das gravações mais
+	 * recentes e os ids sem valor (nulos).
+	 **/
+	private static class Column {
+		long[] keys = new long[0];
+		int[] ids = new int[0];
+
+		/** ids que têm uma posição válida nos arrays **/
+		BitSet inArrays = new BitSet();
+		/** ids cuja posição nos arrays ficou velha (produto alterado ou removido) **/
+		BitSet stale = new BitSet();
+		/** gravações ainda não intercaladas: id -> valor **/
+		Map<Integer, Long> pending = new HashMap<>();
+		/** ids de produtos com valor nulo nessa coluna **/
+		BitSet missing = new BitSet();
+
+		void put(int id, Long key) {
+			discard(id);
+			if (key == null) {
+				missing.set(id);
+				return;
+			}
+			pending.put(id, key);
+			if (pending.size() > MAX_PENDING) {
+				compact();
+			}
+		}
+
+		void remove(int id) {
+			discard(id);
+		}
+
+		private void discard(int id) {
+			if (inArrays.get(id)) {
+				inArrays.clear(id);
+				stale.set(id);
+			}
+			pending.remove(id);
+			missing.clear(id);
+		}
+
+		BitSet range(long from, long to) {
+			BitSet result = new BitSet();
+			for (int i = lowerBound(from); i < keys.length && keys[i] <= to; i++) {
+				if (!stale.get(ids[i])) {
+					result.set(ids[i]);
+				}
+			}
+			pending.forEach((id, key) -> {
+				if (key >= from && key <= to) {
+					result.set(id);
+				}
+			});
+			return result;
+		}
+
+		/** Chama action com o valor de cada id de filter que tem valor na coluna **/
+		void forEach(BitSet filter, LongConsumer action) {
+			for (int i = 0; i < keys.length; i++) {
+				if (filter.get(ids[i]) && !stale.get(ids[i])) {
+					action.accept(keys[i]);
+				}
+			}
+			pending.forEach((id, key) -> {
+				if (filter.get(id)) {
+					action.accept(key);
+				}
+			});
+		}
+
+		/** Primeira posição com valor >= key **/
+		private int lowerBound(long key) {
+			int low = 0;
+			int high = keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid] < key) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Percorre os arrays e o buffer (ordenado na hora, é pequeno) ao mesmo tempo,
+		 * como num merge, pulando as posições obsoletas e os ids fora do filtro.
+		 **/
+		List<Long> page(BitSet filter, long offset, int size, boolean ascending) {
+			Builder sortedPending = new Builder();
+			pending.forEach(sortedPending::add);
+			sortedPending.sort();
+
+			List<Long> page = new ArrayList<>(size);
+			long skipped = 0;
+			int n = keys.length;
+			int p = sortedPending.size;
+			int i = 0;
+			int j = 0;
+
+			while ((i < n || j < p) && page.size() < size) {
+				int ai = ascending ? i : n - 1 - i;
+				int bj = ascending ? j : p - 1 - j;
+				boolean takeArrays;
+				if (i >= n) {
+					takeArrays = false;
+				} else if (j >= p) {
+					takeArrays = true;
+				} else {
+					int cmp = compare(keys[ai], ids[ai], sortedPending.keys[bj], sortedPending.ids[bj]);
+					takeArrays = ascending ? cmp <= 0 : cmp >= 0;
+				}
+
+				int id;
+				if (takeArrays) {
+					id = ids[ai];
+					i++;
+					if (stale.get(id)) {
+						continue;
+					}
+				} else {
+					id = sortedPending.ids[bj];
+					j++;
+				}
+
+				if (filter.get(id) && skipped++ >= offset) {
+					page.add((long) id);
+				}
+			}
+
+			for (int id = missing.nextSetBit(0); id >= 0 && page.size() < size; id = missing.nextSetBit(id + 1)) {
+				if (filter.get(id) && skipped++ >= offset) {
+					page.add((long) id);
+				}
+			}
+			return page;
+		}
+
+		/** Intercala o buffer nos arrays, descartando as posições obsoletas **/
+		void compact() {
+			Builder sortedPending = new Builder();
+			pending.forEach(sortedPending::add);
+			sortedPending.sort();
+
+			int live = keys.length - stale.cardinality();
+			long[] newKeys = new long[live + sortedPending.size];
+			int[] newIds = new int[live + sortedPending.size];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < keys.length || j < sortedPending.size) {
+				if (i < keys.length && stale.get(ids[i])) {
+					i++;
+				} else if (j >= sortedPending.size || (i < keys.length
+						&& compare(keys[i], ids[i], sortedPending.keys[j], sortedPending.ids[j]) <= 0)) {
+					newKeys[k] = keys[i];
+					newIds[k++] = ids[i++];
+				} else {
+					newKeys[k] = sortedPending.keys[j];
+					newIds[k++] = sortedPending.ids[j++];
+				}
+			}
+
+			keys = newKeys;
+			ids = newIds;
+			pending.clear();
+			stale.clear();
+			inArrays.clear();
+			for (int id : ids) {
+				inArrays.set(id);
+			}
+		}
+
+		long memoryBytes() {
+			return keys.length * 8L + ids.length * 4L + (inArrays.size() + stale.size() + missing.size()) / 8
+					+ pending.size() * 64L;
+		}
+
+		private static int compare(long keyA, int idA, long keyB, int idB) {
+			int cmp = Long.compare(keyA, keyB);
+			return cmp != 0 ? cmp : Integer.compare(idA, idB);
+		}
+
+		/** Arrays que crescem conforme as linhas chegam, ordenados no final **/
+		private static class Builder {
+			long[] keys = new long[1024];
+			int[] ids = new int[1024];
+			int size;
+			BitSet missing = new BitSet();
+
+			void add(int id, Long key) {
+				if (key == null) {
+					missing.set(id);
+					return;
+				}
+				if (size == keys.length) {
+					keys = Arrays.copyOf(keys, size * 2);
+					ids = Arrays.copyOf(ids, size * 2);
+				}
+				keys[size] = key;
+				ids[size++] = id;
+			}
+
+			/** Merge sort dos dois arrays juntos, por (valor, id) **/
+			void sort() {
+				long[] tmpKeys = new long[size];
+				int[] tmpIds = new int[size];
+				mergeSort(0, size, tmpKeys, tmpIds);
+			}
+
+			private void mergeSort(int from, int to, long[] tmpKeys, int[] tmpIds) {
+				if (to - from < 2) {
+					return;
+				}
+				int mid = (from + to) >>> 1;
+				mergeSort(from, mid, tmpKeys, tmpIds);
+				mergeSort(mid, to, tmpKeys, tmpIds);
+
+				int i = from;
+				int j = mid;
+				int k = from;
+				while (i < mid || j < to) {
+					if (j >= to || (i < mid && compare(keys[i], ids[i], keys[j], ids[j]) <= 0)) {
+						tmpKeys[k] = keys[i];
+						tmpIds[k++] = ids[i++];
+					} else {
+						tmpKeys[k] = keys[j];
+						tmpIds[k++] = ids[j++];
+					}
+				}
+				System.arraycopy(tmpKeys, from, keys, from, to - from);
+				System.arraycopy(tmpIds, from, ids, from, to - from);
+			}
+
+			void buildInto(Column column) {
+				sort();
+				column.keys = Arrays.copyOf(keys, size);
+				column.ids = Arrays.copyOf(ids, size);
+				column.pending.clear();
+				column.stale.clear();
+				column.missing = missing;
+				column.inArrays.clear();
+				for (int id : column.ids) {
+					column.inArrays.set(id);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.devsuperior.dscatalog.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
+
+/**
+ * Cursor opaco da paginação keyset de produtos. Guarda a ordenação usada e o
+ * par (valor da chave de ordenação, id) do último produto da página. Para o
+ * cliente é só uma string em base64, ele não precisa (nem deve) montar isso na
+ * mão.
+ **/
+public class ProductCursor {
+
+	/** Ordenações suportadas no modo keyset **/
+	public static final Set<String> SORTABLE = Set.of("id", "name", "price", "date");
+
+	private static final String VERSION = "v1";
+
+	private final String property;
+	private final Sort.Direction direction;
+	private final Long lastId;
+	private final Object lastValue;
+
+	public ProductCursor(String property, Sort.Direction direction, Long lastId, Object lastValue) {
+		this.property = property;
+		this.direction = direction;
+		this.lastId = lastId;
+		this.lastValue = lastValue;
+	}
+
+	/** Monta o cursor a partir do último produto da página **/
+	public static ProductCursor after(Sort.Order order, ProductDTO last) {
+		return new ProductCursor(order.getProperty(), order.getDirection(), last.getId(),
+				valueOf(order.getProperty(), last));
+	}
+
+	public static ProductCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			/** O valor vai por último, pois o nome do produto pode conter o separador **/
+			String[] parts = raw.split("\\|", 5);
+			if (parts.length != 5 || !VERSION.equals(parts[0]) || !SORTABLE.contains(parts[1])) {
+				throw new InvalidParameterException("Cursor inválido");
+			}
+			String property = parts[1];
+			Sort.Direction direction = Sort.Direction.fromString(parts[2]);
+			Long lastId = Long.valueOf(parts[3]);
+			return new ProductCursor(property, direction, lastId, parseValue(property, parts[4]));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new InvalidParameterException("Cursor inválido");
+		}
+	}
+
+	public String encode() {
+		String value = lastValue == null ? "" : lastValue.toString();
+		String raw = String.join("|", VERSION, property, direction.name(), lastId.toString(), value);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public boolean matches(Sort.Order order) {
+		return property.equals(order.getProperty()) && direction == order.getDirection();
+	}
+
+	public Sort.Order toOrder() {
+		return new Sort.Order(direction, property);
+	}
+
+	private static Object valueOf(String property, ProductDTO product) {
+		switch (property) {
+		case "name":
+			return product.getName();
+		case "price":
+			return product.getPrice();
+		case "date":
+			return product.getDate();
+		default:
+			return product.getId();
+		}
+	}
+
+	private static Object parseValue(String property, String value) {
+		switch (property) {
+		case "name":
+			return value;
+		case "price":
+			return Double.valueOf(value);
+		case "date":
+			return Instant.parse(value);
+		default:
+			return Long.valueOf(value);
+		}
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public Sort.Direction getDirection() {
+		return direction;
+	}
+
+	public Long getLastId() {
+		return lastId;
+	}
+
+	public Object getLastValue() {
+		return lastValue;
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.PriceFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductFacetsDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
+
+/**
+ * Facetas da listagem de produtos: quantos produtos do filtro (ou da busca)
+ * existem em cada categoria e em cada faixa de preço. Antes isso custava um
+ * COUNT por categoria a cada requisição; aqui as contagens saem dos índices em
+ * memória (bitmaps de categoria e coluna de preço), e o banco só é consultado
+ * para os nomes das categorias.
+ *
+ * O resultado fica em cache por filtro. Cada entrada guarda a geração das
+ * regiões products e categories do PageCountCache, que os services incrementam
+ * a cada gravação, então uma entrada de antes da gravação é descartada. Quem
+ * chama sempre recebe uma cópia, então alterar o DTO devolvido não mexe no
+ * cache.
+ **/
+@Service
+public class ProductFacetService {
+
+	private static final int MAX_ENTRIES = 1000;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductCategoryIndex categoryIndex;
+
+	@Autowired
+	private ProductColumnIndex columnIndex;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private PageCountCache countCache;
+
+	private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+	@Transactional(readOnly = true)
+	public ProductFacetsDTO findFacets(ProductFilterDTO filter, String query, double priceBucket) {
+		/** Escrito assim para o NaN também cair aqui (toda comparação com NaN é falsa) **/
+		if (!(priceBucket > 0) || Double.isInfinite(priceBucket)) {
+			throw new UnprocessableEntityException("O tamanho da faixa de preço deve ser um número finito maior que zero");
+		}
+
+		String key = filter.toKey() + ";q=" + String.join(" ", ProductSearchIndex.analyze(query)) + ";priceBucket="
+				+ priceBucket;
+		long productsGeneration = countCache.generation(ProductService.COUNT_REGION);
+		long categoriesGeneration = countCache.generation(CategoryServices.COUNT_REGION);
+
+		Entry entry = cache.get(key);
+		if (entry != null && entry.productsGeneration == productsGeneration
+				&& entry.categoriesGeneration == categoriesGeneration) {
+			return new ProductFacetsDTO(entry.facets);
+		}
+
+		ProductFacetsDTO facets = compute(productService.findMatchingIds(filter, query), priceBucket);
+
+		if (cache.size() >= MAX_ENTRIES) {
+			cache.clear();
+		}
+		cache.put(key, new Entry(productsGeneration, categoriesGeneration, new ProductFacetsDTO(facets)));
+		return facets;
+	}
+
+	private ProductFacetsDTO compute(BitSet ids, double priceBucket) {
+		Map<Long, Integer> counts = categoryIndex.counts(ids);
+
+		List<CategoryFacetDTO> categories = new ArrayList<>();
+		if (!counts.isEmpty()) {
+			for (CategoryDTO category : categoryRepository.findProjectedByIdIn(counts.keySet())) {
+				categories.add(new CategoryFacetDTO(category.getId(), category.getName(), counts.get(category.getId())));
+			}
+		}
+		categories.sort(Comparator.comparing(CategoryFacetDTO::getCount).reversed()
+				.thenComparing(CategoryFacetDTO::getName));
+
+		List<PriceFacetDTO> prices = new ArrayList<>();
+		columnIndex.priceHistogram(ids, priceBucket)
+				.forEach((from, count) -> prices.add(new PriceFacetDTO(from, from + priceBucket, count)));
+
+		return new ProductFacetsDTO(ids.cardinality(), categories, prices);
+	}
+
+	private static class Entry {
+		final long productsGeneration;
+		final long categoriesGeneration;
+		final ProductFacetsDTO facets;
+
+		Entry(long productsGeneration, long categoriesGeneration, ProductFacetsDTO facets) {
+			this.productsGeneration = productsGeneration;
+			this.categoriesGeneration = categoriesGeneration;
+			this.facets = facets;
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.devsuperior.dscatalog.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+
+/**
+ * Índice invertido em memória sobre o nome e a descrição dos produtos. Um LIKE
+ * '%x%' na coluna TEXT faz o banco ler a tabela inteira a cada busca; aqui cada
+ * termo aponta direto para os produtos que o contêm, e o resultado vem ordenado
+ * por relevância (BM25, com peso maior para o nome).
+ *
+ * O índice é carregado na subida da aplicação (ProductService.loadIndexes) e
+ * atualizado pelo ProductService a cada insert/update/delete. As buscas podem
+ * rodar em paralelo entre si; as atualizações pegam o lock de escrita, então uma
+ * busca nunca enxerga um produto indexado pela metade.
+ **/
+@Component
+public class ProductSearchIndex {
+
+	/** Cada ocorrência no nome conta como se o termo aparecesse 3 vezes **/
+	private static final int NAME_BOOST = 3;
+
+	/** Quantos termos do dicionário o último termo da busca pode expandir como prefixo **/
+	private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+	private static final Set<String> STOPWORDS = Set.of("a", "o", "as", "os", "ao", "aos", "de", "da", "do", "das",
+			"dos", "e", "em", "no", "na", "nos", "nas", "um", "uma", "para", "por", "com", "sem", "the", "of", "and",
+			"for");
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** termo -> (id do produto -> frequência do termo, já com o peso do nome) **/
+	private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+	private final Map<Long, Document> documents = new HashMap<>();
+	private long totalLength;
+
+	/**
+	 * Troca todo o conteúdo do índice pelos produtos do stream. Segura o lock de
+	 * escrita até o fim, então as buscas feitas durante a carga esperam o índice
+	 * ficar completo em vez de receber um resultado parcial.
+	 **/
+	public void load(Stream<ProductDTO> products) {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			documents.clear();
+			totalLength = 0;
+			products.forEach(dto -> add(dto.getId(), dto.getName(), dto.getDescription()));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Indexa um produto novo ou reindexa um produto alterado **/
+	public void index(Long id, String name, String description) {
+		lock.writeLock().lock();
+		try {
+			remove(id, documents.remove(id));
+			add(id, name, description);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			remove(id, documents.remove(id));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids dos produtos que têm algum termo da busca, do mais para o menos
+	 * relevante. O último termo também casa como prefixo ("gam" encontra "gamer"),
+	 * para a busca funcionar enquanto o usuário digita.
+	 **/
+	public Page<Long> search(String query, Pageable pageable) {
+		List<String> terms = analyze(query);
+		if (terms.isEmpty()) {
+			return new PageImpl<>(List.of(), pageable, 0);
+		}
+
+		List<Map.Entry<Long, Double>> hits = new ArrayList<>(scores(terms).entrySet());
+		hits.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+		List<Long> content = hits.stream().skip(pageable.getOffset()).limit(pageable.getPageSize())
+				.map(Map.Entry::getKey).collect(Collectors.toList());
+		return new PageImpl<>(content, pageable, hits.size());
+	}
+
+	/**
+	 * Todos os ids que a busca encontra, sem ordenar, para filtros e facetas. Ids
+	 * que não cabem no BitSet ficam de fora; o ProductService não usa bitmaps
+	 * enquanto os outros índices estiverem incompletos.
+	 **/
+	public BitSet matchAll(String query) {
+		BitSet ids = new BitSet();
+		scores(analyze(query)).keySet().stream().filter(ProductBitmaps::fits).forEach(id -> ids.set(id.intValue()));
+		return ids;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Map<Long, Double> scores(List<String> terms) {
+		Map<Long, Double> scores = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < terms.size(); i++) {
+				boolean prefix = i == terms.size() - 1;
+				termScores(terms.get(i), prefix).forEach((id, score) -> scores.merge(id, score, Double::sum));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return scores;
+	}
+
+	/**
+	 * Analisador usado tanto na indexação quanto na busca: minúsculas, sem acentos
+	 * ("Eletrônicos" vira "eletronicos", "ç" vira "c"), quebrado em tudo que não é
+	 * letra ou número e sem as stopwords mais comuns.
+	 **/
+	static List<String> analyze(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		String folded = DIACRITICS
+				.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)).replaceAll("");
+		for (String token : NON_ALPHANUMERIC.split(folded)) {
+			if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Pontuação BM25 de um termo da busca. Quando o termo é expandido como prefixo,
+	 * cada produto fica com a maior pontuação entre os termos expandidos, para um
+	 * prefixo curto não valer mais que uma palavra inteira.
+	 **/
+	private Map<Long, Double> termScores(String term, boolean prefix) {
+		Map<Long, Double> scores = new HashMap<>();
+		double avgLength = documents.isEmpty() ? 1.0 : (double) totalLength / documents.size();
+
+		Map<String, Map<Long, Integer>> matches;
+		if (prefix) {
+			matches = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+		} else {
+			matches = postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of();
+		}
+
+		matches.entrySet().stream().sorted(Comparator.comparing(e -> e.getKey().length()))
+				.limit(MAX_PREFIX_EXPANSIONS).forEach(e -> {
+					Map<Long, Integer> docs = e.getValue();
+					double idf = Math.log(1 + (documents.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+					docs.forEach((id, tf) -> {
+						double norm = K1 * (1 - B + B * documents.get(id).length / avgLength);
+						double score = idf * tf * (K1 + 1) / (tf + norm);
+						scores.merge(id, score, Math::max);
+					});
+				});
+		return scores;
+	}
+
+	private void add(Long id, String name, String description) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		analyze(name).forEach(term -> frequencies.merge(term, NAME_BOOST, Integer::sum));
+		analyze(description).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+		int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+		frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+		documents.put(id, new Document(frequencies.keySet(), length));
+		totalLength += length;
+	}
+
+	private void remove(Long id, Document old) {
+		if (old == null) {
+			return;
+		}
+		for (String term : old.terms) {
+			Map<Long, Integer> docs = postings.get(term);
+			docs.remove(id);
+			if (docs.isEmpty()) {
+				postings.remove(term);
+			}
+		}
+		totalLength -= old.length;
+	}
+
+	private static class Document {
+		final Set<String> terms;
+		final int length;
+
+		Document(Set<String> terms, int length) {
+			this.terms = terms;
+			this.length = length;
+		}
+	}
+
+}
@@ -1,25 +1,57 @@
 package com.devsuperior.dscatalog.services;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkDTO.Operation;
+import com.devsuperior.dscatalog.dto.ProductBulkResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.repositories.projections.ProductCategoryProjection;
+import com.devsuperior.dscatalog.repositories.projections.ProductColumnsProjection;
+import com.devsuperior.dscatalog.repositories.projections.ProductVersionProjection;
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
 
 /**
  * Essa @ registra essa classe como um componente que vai participar do sistema
@@ -29,6 +61,18 @@ import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 @Service
 public class ProductService {
 
+	/** Região do PageCountCache com os totais das listagens de products **/
+	public static final String COUNT_REGION = "products";
+
+	/** Limite de produtos por chamada do insertAll (POST /products/batch) **/
+	public static final int MAX_BATCH_INSERT = 10_000;
+
+	/** Quantos ids vão em cada UPDATE/DELETE do bulk (IN com no máximo esse tamanho) **/
+	private static final int BULK_STATEMENT_SIZE = 1000;
+
+	/** Quantos produtos o insertAll manda para o banco antes de limpar o contexto de persistência **/
+	private static final int INSERT_FLUSH_SIZE = 500;
+
 	/**
 	 * Para acessar as produtos no banco, preciso que meu ProductService tenha
 	 * uma dependência com o ProductRepository E preciso anotar o
@@ -41,10 +85,45 @@ public class ProductService {
 
 	@Autowired
 	private ProductRepository repository;
+
+	@Autowired
+	private PageCountCache countCache;
 	
 	@Autowired
 	private CategoryRepository categoryRepository;
 
+	@Autowired
+	private CategoryRegistry categoryRegistry;
+
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private ProductCategoryIndex categoryIndex;
+
+	@Autowired
+	private ProductColumnIndex columnIndex;
+
+	/**
+	 * Carrega os índices em memória (busca textual, categorias, preço e data)
+	 * quando a aplicação termina de subir, lendo as tabelas como Stream (sem trazer
+	 * todas as linhas para a memória de uma vez). Depois disso o
+	 * insert/update/delete mantém os índices atualizados.
+	 **/
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void loadIndexes() {
+		try (Stream<ProductDTO> products = repository.streamAllProjected()) {
+			searchIndex.load(products);
+		}
+		try (Stream<ProductCategoryProjection> rows = repository.streamAllCategories()) {
+			categoryIndex.load(rows);
+		}
+		try (Stream<ProductColumnsProjection> rows = repository.streamAllColumns()) {
+			columnIndex.load(rows);
+		}
+	}
+
 	/**
 	 * Transactional= quando alguma operação envolve transação com o banco, podemos
 	 * fazer a anotação @Transactional, isso faz com que a transação só ocorra se o
@@ -56,7 +135,23 @@ public class ProductService {
 	 **/
 	@Transactional(readOnly = true)
 	public Page<ProductDTO> findAllPaged(Pageable pageable) {
-		Page<Product> list = repository.findAll(pageable);
+		return findAllPaged(pageable, false);
+	}
+
+	/**
+	 * Com expandCategories cada ProductDTO já vem com a lista de categorias. Elas
+	 * são carregadas numa única consulta para a página inteira, em vez de uma
+	 * consulta por produto.
+	 **/
+	@Transactional(readOnly = true)
+	public Page<ProductDTO> findAllPaged(Pageable pageable, boolean expandCategories) {
+		/**
+		 * O total da listagem vem do PageCountCache quando possível, assim o SELECT
+		 * COUNT(*) só roda quando o total ainda não é conhecido ou foi invalidado por
+		 * alguma gravação.
+		 **/
+		Page<ProductDTO> list = countCache.findPage(COUNT_REGION, "", pageable,
+				p -> repository.findSliceProjected(p).getContent(), p -> repository.findAllProjected(p));
 
 		/**
 		 * Como a camada controladora não pode ter acesso à camada de entidade Product,
@@ -82,8 +177,265 @@ public class ProductService {
 		 * converter de volta em uma lista com o collectors.tolist().
 		 **/
 
-		return list.map(x -> new ProductDTO(x));
+		/**
+		 * Hoje esse map não é mais necessário: o repository já devolve os ProductDTO
+		 * prontos (projeção), só com as colunas da listagem, sem passar pela entidade
+		 * Product.
+		 **/
+
+		if (expandCategories && !list.isEmpty()) {
+			addCategories(list.getContent());
+		}
+
+		return list;
+
+	}
+
+	/**
+	 * Listagem com filtros (categorias, preço, data). Quais produtos entram é
+	 * resolvido nos índices em memória, sem JOIN com a tb_product_category e sem
+	 * range scan; o banco só busca os produtos da página pedida, pelos ids. O total
+	 * também sai dos índices, então não existe SELECT COUNT(*).
+	 *
+	 * Se algum produto tem um id que não cabe nos bitmaps, os índices estão
+	 * incompletos e o filtro, a página e o total vêm do banco.
+	 **/
+	@Transactional(readOnly = true)
+	public Page<ProductDTO> findAllPaged(ProductFilterDTO filter, Pageable pageable, boolean expandCategories) {
+		if (filter.isEmpty()) {
+			return findAllPaged(pageable, expandCategories);
+		}
+
+		Page<ProductDTO> list = bitmapsComplete() ? findPageByIds(filter, matchingIds(filter), pageable)
+				: new PageImpl<>(repository.findFilteredPage(filter, pageable), pageable,
+						repository.countFiltered(filter));
+
+		if (expandCategories && !list.isEmpty()) {
+			addCategories(list.getContent());
+		}
+
+		return list;
+	}
+
+	/**
+	 * Ids dos produtos que passam no filtro e na busca textual, quando informada.
+	 * Sem filtro e sem busca, todos os produtos. Tudo resolvido em memória.
+	 **/
+	public BitSet findMatchingIds(ProductFilterDTO filter, String query) {
+		if (!bitmapsComplete()) {
+			throw new ServiceUnavailableException("Índices de produtos incompletos: há ids maiores que "
+					+ Integer.MAX_VALUE);
+		}
+		BitSet ids = filter.isEmpty() ? null : matchingIds(filter);
+		if (query != null && !query.isBlank()) {
+			ids = and(ids, searchIndex.matchAll(query));
+		}
+		return ids == null ? columnIndex.allIds() : ids;
+	}
+
+	/** Interseção (AND) dos filtros informados, cada um resolvido no seu índice **/
+	private BitSet matchingIds(ProductFilterDTO filter) {
+		BitSet ids = null;
+		if (filter.hasCategories()) {
+			ids = categoryIndex.match(filter.getCategoryId(), filter.isMatchAllCategories());
+		}
+		if (filter.hasPriceRange()) {
+			ids = and(ids, columnIndex.priceRange(filter.getMinPrice(), filter.getMaxPrice()));
+		}
+		if (filter.hasDateRange()) {
+			ids = and(ids, columnIndex.dateRange(filter.getFrom(), filter.getTo()));
+		}
+		return ids == null ? new BitSet() : ids;
+	}
+
+	private static BitSet and(BitSet ids, BitSet other) {
+		if (ids == null) {
+			return other;
+		}
+		ids.and(other);
+		return ids;
+	}
+
+	private boolean bitmapsComplete() {
+		return categoryIndex.isComplete() && columnIndex.isComplete();
+	}
+
+	/**
+	 * Ordenado por id (ou sem ordenação) a página é recortada direto do bitmap, e
+	 * ordenado por price ou date ela sai do ProductColumnIndex; nos dois casos o
+	 * banco recebe só os ids da página. Com outra ordenação (name) quem filtra e
+	 * ordena é o banco, com o próprio filtro no WHERE: mandar todos os ids que
+	 * passaram no filtro viraria um IN sem limite (o Postgres não aceita mais de
+	 * 32767 parâmetros). O total continua vindo do bitmap.
+	 **/
+	private Page<ProductDTO> findPageByIds(ProductFilterDTO filter, BitSet ids, Pageable pageable) {
+		int total = ids.cardinality();
+		if (total == 0 || pageable.getOffset() >= total) {
+			return new PageImpl<>(List.of(), pageable, total);
+		}
+
+		Sort sort = pageable.getSort();
+		Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+		boolean singleOrder = sort.stream().count() <= 1;
+		List<ProductDTO> content;
+
+		if (singleOrder && ("id".equals(order.getProperty()) || columnIndex.isSortable(order.getProperty()))) {
+			List<Long> pageIds = "id".equals(order.getProperty())
+					? pageOfIds(ids, pageable.getOffset(), pageable.getPageSize(), order.isAscending())
+					: columnIndex.page(order.getProperty(), ids, pageable.getOffset(), pageable.getPageSize(),
+							order.isAscending());
+
+			Map<Long, ProductDTO> byId = new HashMap<>();
+			repository.findProjectedByIdIn(pageIds).forEach(dto -> byId.put(dto.getId(), dto));
+			content = pageIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+		} else {
+			content = repository.findFilteredPage(filter, pageable);
+		}
+
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	private static List<Long> pageOfIds(BitSet ids, long offset, int size, boolean ascending) {
+		List<Long> page = new ArrayList<>(size);
+		long skipped = 0;
+		int bit = ascending ? ids.nextSetBit(0) : ids.previousSetBit(ids.length() - 1);
+		while (bit >= 0 && page.size() < size) {
+			if (skipped++ >= offset) {
+				page.add((long) bit);
+			}
+			bit = ascending ? ids.nextSetBit(bit + 1) : ids.previousSetBit(bit - 1);
+		}
+		return page;
+	}
+
+	/**
+	 * Busca as categorias de todos os produtos da lista numa consulta só e pendura
+	 * cada uma no ProductDTO correspondente.
+	 **/
+	private void addCategories(List<ProductDTO> products) {
+		Map<Long, ProductDTO> byId = new HashMap<>();
+		products.forEach(dto -> byId.put(dto.getId(), dto));
+
+		for (ProductCategoryProjection row : repository.findCategoriesByProductIds(byId.keySet())) {
+			byId.get(row.getProductId()).getCategories().add(new CategoryDTO(row.getCategoryId(), row.getCategoryName()));
+		}
+	}
+
+	/**
+	 * Listagem sem o total: o cliente só fica sabendo se existe próxima página
+	 * (hasNext), e em troca o banco não precisa rodar o SELECT COUNT(*).
+	 **/
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findAllSliced(Pageable pageable) {
+		countCache.countSkipped(COUNT_REGION);
+		return repository.findSliceProjected(pageable);
+	}
+
+	/** Com filtro o total já sai de graça do índice, então a resposta é a Page completa **/
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findAllSliced(ProductFilterDTO filter, Pageable pageable) {
+		if (filter.isEmpty()) {
+			return findAllSliced(pageable);
+		}
+		return findAllPaged(filter, pageable, false);
+	}
+
+	/**
+	 * Paginação por cursor. O OFFSET obriga o banco a ler e descartar todas as
+	 * linhas das páginas anteriores, então as páginas do fim ficam cada vez mais
+	 * lentas. Aqui a busca começa direto depois do último produto que o cliente
+	 * recebeu (chave de ordenação + id), e o tempo fica igual em qualquer página.
+	 * Também não roda o COUNT(*), só buscamos um registro a mais para saber se
+	 * existe próxima página.
+	 **/
+	@Transactional(readOnly = true)
+	public CursorPageDTO<ProductDTO> findAllKeyset(String after, Pageable pageable) {
+		ProductCursor cursor = (after == null || after.isBlank()) ? null : ProductCursor.decode(after);
+
+		Sort.Order order = pageable.getSort().stream().findFirst()
+				.orElse(cursor != null ? cursor.toOrder() : Sort.Order.asc("id"));
+
+		if (!ProductCursor.SORTABLE.contains(order.getProperty())) {
+			throw new InvalidParameterException("Ordenação não suportada na paginação por cursor: " + order.getProperty());
+		}
+		if (cursor != null && !cursor.matches(order)) {
+			throw new InvalidParameterException("O cursor foi gerado com outra ordenação");
+		}
+
+		int size = pageable.getPageSize();
+		List<ProductDTO> list = repository.findKeysetPage(order.getProperty(), order.getDirection(),
+				cursor == null ? null : cursor.getLastValue(), cursor == null ? null : cursor.getLastId(), size + 1);
+
+		String nextCursor = null;
+		if (list.size() > size) {
+			list = list.subList(0, size);
+			nextCursor = ProductCursor.after(order, list.get(size - 1)).encode();
+		}
+
+		return new CursorPageDTO<>(list, size, nextCursor);
+	}
+
+	/**
+	 * Um lote do export: os próximos size produtos depois do afterId (0 para o
+	 * primeiro lote), por ordem de id, já com as categorias (numa consulta só). O
+	 * resource chama um lote de cada vez, então cada um é uma transação curta e a
+	 * conexão volta para o pool enquanto o lote é escrito para o cliente, por mais
+	 * devagar que ele leia. Como a leitura é por projeção em DTO, nenhuma entidade
+	 * entra no contexto de persistência.
+	 **/
+	@Transactional(readOnly = true)
+	public List<ProductDTO> findExportBatch(long afterId, int size) {
+		List<ProductDTO> batch = repository.findProjectedAfterId(afterId, PageRequest.of(0, size));
+		if (!batch.isEmpty()) {
+			addCategories(batch);
+		}
+		return batch;
+	}
+
+	/**
+	 * Busca textual no nome e na descrição, ordenada por relevância. Quem resolve a
+	 * busca é o ProductSearchIndex em memória; o banco só é consultado para montar
+	 * os DTOs da página pedida, pelos ids.
+	 **/
+	@Transactional(readOnly = true)
+	public Page<ProductDTO> search(String query, Pageable pageable) {
+		Page<Long> ids = searchIndex.search(query, pageable);
+		if (ids.isEmpty()) {
+			return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+		}
 
+		Map<Long, ProductDTO> byId = new HashMap<>();
+		repository.findProjectedByIdIn(ids.getContent()).forEach(dto -> byId.put(dto.getId(), dto));
+
+		/** Mantém a ordem de relevância do índice **/
+		List<ProductDTO> content = ids.getContent().stream().map(byId::get).filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		return new PageImpl<>(content, pageable, ids.getTotalElements());
+	}
+
+	/**
+	 * ETag e Last-Modified do GET /products/{id}, a partir da versão do produto e
+	 * das datas das categorias dele, numa consulta só de colunas (sem hidratar a
+	 * entidade). Se o cliente já tem essa versão, o resource responde 304 sem
+	 * chamar o findById.
+	 **/
+	@Transactional(readOnly = true)
+	public ResourceVersion findVersionById(Long id) {
+		ProductVersionProjection version = repository.findVersionById(id)
+				.orElseThrow(() -> new ResourceNotFoundException("Resultado não encontrado :("));
+
+		Instant categories = ResourceVersion.latest(version.getCategoriesCreatedAt(), version.getCategoriesUpdatedAt());
+		return ResourceVersion.of(version.getVersion() + "-" + ResourceVersion.micros(categories),
+				ResourceVersion.latest(version.getUpdatedAt(), categories));
+	}
+
+	/**
+	 * ETag das listagens de produtos, das gerações de produtos e de categorias
+	 * (os nomes das categorias aparecem com expand=categories), sem ir no banco.
+	 * O resource ainda junta os parâmetros da requisição com forQuery.
+	 **/
+	public ResourceVersion findListVersion() {
+		return ResourceVersion.ofRegions(countCache, COUNT_REGION, CategoryServices.COUNT_REGION);
 	}
 
 	@Transactional(readOnly = true)
@@ -119,17 +471,163 @@ public class ProductService {
 		copyDtoToEntity(prodDto, entity);
 		
 		entity = repository.save(entity); // o save retorna uma referência para a entidade salva
+		flushCategories(List.of(entity));
+		reindexAfterCommit(entity);
+		AfterCommit.run(() -> countCache.invalidate(COUNT_REGION));
 
 		return new ProductDTO(entity);
 	}
 
 
+	/**
+	 * Insere vários produtos numa transação só. Os ids vêm da sequence em blocos
+	 * de 50 e os inserts (produtos e tb_product_category) vão para o banco em JDBC
+	 * batch, de INSERT_FLUSH_SIZE em INSERT_FLUSH_SIZE produtos, limpando o
+	 * contexto de persistência entre um bloco e outro. Se algum produto falhar,
+	 * nenhum é inserido.
+	 **/
+	@Transactional
+	public List<ProductDTO> insertAll(List<ProductDTO> dtos) {
+		if (dtos.isEmpty() || dtos.size() > MAX_BATCH_INSERT) {
+			throw new InvalidParameterException("Informe entre 1 e " + MAX_BATCH_INSERT + " produtos");
+		}
+
+		List<ProductDTO> result = new ArrayList<>(dtos.size());
+		for (int from = 0; from < dtos.size(); from += INSERT_FLUSH_SIZE) {
+			List<Product> entities = new ArrayList<>(INSERT_FLUSH_SIZE);
+			for (ProductDTO dto : dtos.subList(from, Math.min(from + INSERT_FLUSH_SIZE, dtos.size()))) {
+				Product entity = new Product();
+				copyDtoToEntity(dto, entity);
+				entities.add(entity);
+			}
+			try {
+				repository.insertAndClear(entities);
+			} catch (DataIntegrityViolationException e) {
+				throw categoriesRemoved(categoryIds(entities));
+			}
+			for (Product entity : entities) {
+				reindexAfterCommit(entity);
+				result.add(new ProductDTO(entity));
+			}
+		}
+		AfterCommit.run(() -> countCache.invalidate(COUNT_REGION));
+		return result;
+	}
+
+	/**
+	 * Alteração em massa: muda o preço (SET_PRICE / ADJUST_PRICE) ou apaga
+	 * (DELETE) todos os produtos que passam no filtro e/ou estão na lista de ids.
+	 * O filtro é resolvido no banco, com o mesmo predicado do findFilteredPage, e
+	 * não nos índices em memória: eles podem estar atrás do banco (commit de outra
+	 * transação cujo AfterCommit ainda não rodou, outra instância, SQL direto).
+	 * Os ids que passam são travados (lockFilteredIds) e alterados com um único
+	 * UPDATE ou DELETE por lote de BULK_STATEMENT_SIZE ids, sem carregar nenhuma
+	 * entidade; os UPDATEs levam o filtro no WHERE também. Depois do commit os
+	 * índices e o cache dos totais são atualizados, como num update ou delete
+	 * normal. Os preços ficam sempre com 2 casas (o ADJUST_PRICE arredonda no
+	 * próprio UPDATE).
+	 **/
+	@Transactional
+	public ProductBulkResultDTO bulk(ProductBulkDTO dto) {
+		if (dto.getOperation() == null) {
+			throw new InvalidParameterException("Informe a operação: SET_PRICE, ADJUST_PRICE ou DELETE");
+		}
+		if (dto.isEmpty() && !dto.hasIds()) {
+			throw new InvalidParameterException("Informe pelo menos um filtro ou a lista de ids");
+		}
+		if (dto.getOperation() == Operation.SET_PRICE && (dto.getValue() == null || dto.getValue() < 0.01)) {
+			throw new InvalidParameterException("O preço deve ser um valor maior que R$0,00");
+		}
+		if (dto.getOperation() == Operation.ADJUST_PRICE && (dto.getValue() == null || dto.getValue() <= -100)) {
+			throw new InvalidParameterException("O ajuste deve ser um percentual maior que -100");
+		}
+
+		Double price = dto.getOperation() == Operation.SET_PRICE
+				? BigDecimal.valueOf(dto.getValue()).setScale(2, RoundingMode.HALF_UP).doubleValue()
+				: null;
+
+		List<Long> ids = new ArrayList<>();
+		if (dto.hasIds()) {
+			List<Long> requested = new ArrayList<>(existingIds(dto.getId()));
+			for (int from = 0; from < requested.size(); from += BULK_STATEMENT_SIZE) {
+				ids.addAll(repository.lockFilteredIds(dto,
+						requested.subList(from, Math.min(from + BULK_STATEMENT_SIZE, requested.size()))));
+			}
+		} else {
+			ids.addAll(repository.lockFilteredIds(dto, null));
+		}
+
+		Instant now = Instant.now();
+		int affected = 0;
+		List<ProductColumnsProjection> changed = new ArrayList<>();
+		for (int from = 0; from < ids.size(); from += BULK_STATEMENT_SIZE) {
+			List<Long> batch = ids.subList(from, Math.min(from + BULK_STATEMENT_SIZE, ids.size()));
+			switch (dto.getOperation()) {
+			case SET_PRICE:
+				affected += repository.setPriceFiltered(dto, batch, price, now);
+				changed.addAll(repository.findColumnsByIdIn(batch));
+				break;
+			case ADJUST_PRICE:
+				affected += repository.multiplyPriceFiltered(dto, batch, 1 + dto.getValue() / 100, now);
+				changed.addAll(repository.findColumnsByIdIn(batch));
+				break;
+			case DELETE:
+				repository.deleteCategoryLinksByProductIdIn(batch);
+				affected += repository.deleteByIdIn(batch);
+				break;
+			}
+		}
+
+		AfterCommit.run(() -> {
+			if (dto.getOperation() == Operation.DELETE) {
+				for (Long id : ids) {
+					searchIndex.remove(id);
+					categoryIndex.remove(id);
+					columnIndex.remove(id);
+				}
+			} else {
+				changed.forEach(row -> columnIndex.update(row.getId(), row.getPrice(), row.getDate()));
+			}
+			countCache.invalidate(COUNT_REGION);
+		});
+		return new ProductBulkResultDTO(dto.getOperation(), affected);
+	}
+
+	/**
+	 * Ids informados no bulk, sem repetição. Um id que não é de nenhum produto
+	 * (ou que nem poderia ser, zero ou negativo) cancela a operação inteira com
+	 * 422, em vez de ser ignorado em silêncio.
+	 **/
+	private Set<Long> existingIds(List<Long> requested) {
+		Set<Long> ids = new TreeSet<>();
+		for (Long id : requested) {
+			if (id == null || id <= 0) {
+				throw new UnprocessableEntityException("Id de produto inválido: " + id);
+			}
+			ids.add(id);
+		}
+
+		Set<Long> missing = new TreeSet<>(ids);
+		List<Long> list = new ArrayList<>(ids);
+		for (int from = 0; from < list.size(); from += BULK_STATEMENT_SIZE) {
+			List<Long> batch = list.subList(from, Math.min(from + BULK_STATEMENT_SIZE, list.size()));
+			missing.removeAll(repository.findIdsByIdIn(batch));
+		}
+		if (!missing.isEmpty()) {
+			throw new UnprocessableEntityException("Produtos não encontrados: " + missing);
+		}
+		return ids;
+	}
+
 	@Transactional
 	public ProductDTO update(Long id, ProductDTO prodDto) {
 		try {
 			Product entity = repository.getOne(id);
 			copyDtoToEntity(prodDto, entity);
 			entity = repository.save(entity);
+			flushCategories(List.of(entity));
+			reindexAfterCommit(entity);
+			AfterCommit.run(() -> countCache.invalidate(COUNT_REGION));
 			return new ProductDTO(entity);
 
 		} catch (EntityNotFoundException e) {
@@ -140,6 +638,12 @@ public class ProductService {
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			AfterCommit.run(() -> {
+				searchIndex.remove(id);
+				categoryIndex.remove(id);
+				columnIndex.remove(id);
+			});
+			countCache.invalidate(COUNT_REGION);
 		} catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não existe " + id);
 
@@ -149,6 +653,25 @@ public class ProductService {
 
 	}
 	
+	/**
+	 * Os valores são copiados agora, dentro da transação; os índices só são
+	 * alterados depois do commit, assim um rollback não deixa os índices diferentes
+	 * do banco. As categorias vêm do set que o copyDtoToEntity acabou de montar.
+	 **/
+	private void reindexAfterCommit(Product entity) {
+		Long id = entity.getId();
+		String name = entity.getName();
+		String description = entity.getDescription();
+		Double price = entity.getPrice();
+		Instant date = entity.getDate();
+		List<Long> categoryIds = entity.getCategories().stream().map(Category::getId).collect(Collectors.toList());
+		AfterCommit.run(() -> {
+			searchIndex.index(id, name, description);
+			categoryIndex.update(id, categoryIds);
+			columnIndex.update(id, price, date);
+		});
+	}
+
 	private void copyDtoToEntity(ProductDTO prodDto, Product entity) {
 		entity.setName(prodDto.getName());
 		entity.setDescription(prodDto.getDescription());
@@ -158,14 +681,81 @@ public class ProductService {
 		
 		entity.getCategories().clear();
 		
-		/** Dentro do ProductDTO (prodDto) eu tenho uma lista de categoriasDTO. Para cada elemento dessa lista de categoriasDTO
-		 * eu percorro e guardo em catDto. Para cada. Depois, eu preciso clonar as informações do DTO para a entidade.
-		 * Assim, eu instancio um category, instancio lá em cima o categoryRepository para poder usar o 
-		 * getOne(esse getOne instancia uma entidade sem abrir transação com o banco) e passo o id da CategoryDto para a
-		 * variável category. Depois disso, clomo a informação para a coleção de categorias da entidade Produto**/
-		for(CategoryDTO catDto : prodDto.getCategories()) {
-			Category category = categoryRepository.getOne(catDto.getId());
-			entity.getCategories().add(category); 
+		/** Dentro do ProductDTO (prodDto) eu tenho uma lista de categoriasDTO. Os ids são conferidos todos de uma vez
+		 * (resolveCategories) e depois, para cada id, o getOne instancia uma referência para a categoria sem abrir
+		 * transação com o banco. Depois disso, clono a informação para a coleção de categorias da entidade Produto.
+		 * As referências são todas criadas antes de entrar no Set: o hashCode inicializa a referência, e assim o
+		 * @BatchSize da Category carrega as que faltam num SELECT só, e não uma por vez. Adicionando uma a uma, cada
+		 * hashCode carrega a sua categoria sozinha, com ou sem o @BatchSize**/
+		Set<Long> categoryIds = resolveCategories(prodDto.getCategories());
+		List<Category> categories = new ArrayList<>();
+		for (Long categoryId : categoryIds) {
+			categories.add(categoryRepository.getOne(categoryId));
+		}
+		try {
+			entity.getCategories().addAll(categories);
+		} catch (EntityNotFoundException e) {
+			throw categoriesRemoved(categoryIds);
+		}
+	}
+
+	/**
+	 * Manda o insert/update para o banco ainda dentro do método. O CategoryRegistry
+	 * é de cada instância da aplicação e não fica sabendo de uma categoria apagada
+	 * por outra; nesse caso a chave estrangeira da tb_product_category falha aqui,
+	 * e não no commit, e dá para responder 422 como quando a categoria não é
+	 * encontrada.
+	 **/
+	private void flushCategories(List<Product> products) {
+		try {
+			repository.flush();
+		} catch (DataIntegrityViolationException e) {
+			throw categoriesRemoved(categoryIds(products));
+		}
+	}
+
+	/**
+	 * Alguma das categorias foi apagada depois de entrar no registro (a referência
+	 * não carrega, ou a chave estrangeira falha): os ids saem do CategoryRegistry,
+	 * para a próxima requisição conferir no banco e receber o 422 com os ids
+	 * certos, e nada é gravado.
+	 **/
+	private UnprocessableEntityException categoriesRemoved(Collection<Long> categoryIds) {
+		categoryRegistry.removeAll(categoryIds);
+		return new UnprocessableEntityException("Alguma destas categorias não existe mais: " + categoryIds);
+	}
+
+	private static Set<Long> categoryIds(List<Product> products) {
+		Set<Long> ids = new TreeSet<>();
+		products.forEach(product -> product.getCategories().forEach(category -> ids.add(category.getId())));
+		return ids;
+	}
+
+	/**
+	 * Ids (sem repetição) das categorias do produto, já conferidos. Os ids que
+	 * estão no CategoryRegistry não custam nenhuma consulta; os que não estão são
+	 * conferidos no banco numa consulta só. Se algum não existir, nada é gravado e
+	 * a requisição volta com 422 listando os ids desconhecidos, em vez de estourar
+	 * uma violação de chave estrangeira só no flush.
+	 **/
+	private Set<Long> resolveCategories(List<CategoryDTO> categories) {
+		Set<Long> ids = new LinkedHashSet<>();
+		for (CategoryDTO catDto : categories) {
+			if (catDto.getId() == null) {
+				throw new UnprocessableEntityException("Informe o id de todas as categorias");
+			}
+			ids.add(catDto.getId());
+		}
+
+		List<Long> unknown = categoryRegistry.unknown(ids);
+		if (!unknown.isEmpty()) {
+			List<Long> found = categoryRepository.findIdsByIdIn(unknown);
+			categoryRegistry.addAll(found);
+			unknown.removeAll(found);
+			if (!unknown.isEmpty()) {
+				throw new UnprocessableEntityException("Categorias não encontradas: " + unknown);
+			}
 		}
+		return ids;
 	}
 }
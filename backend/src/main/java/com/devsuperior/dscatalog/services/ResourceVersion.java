@@ -0,0 +1,79 @@
+package com.devsuperior.dscatalog.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Validadores de cache HTTP de um recurso: o ETag e a data da última alteração
+ * (Last-Modified, nula quando não existe). Os resources usam isso para
+ * responder 304 Not Modified antes de buscar o conteúdo no banco.
+ **/
+public final class ResourceVersion {
+
+	private final String eTag;
+	private final Instant lastModified;
+
+	private ResourceVersion(String eTag, Instant lastModified) {
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+	}
+
+	public static ResourceVersion of(String eTag, Instant lastModified) {
+		return new ResourceVersion(eTag, lastModified);
+	}
+
+	/**
+	 * Versão de uma listagem, das gerações das regiões no PageCountCache (ver
+	 * PageCountCache.version), sem nenhuma consulta. Não tem Last-Modified: um
+	 * delete não deixa data nenhuma, e um If-Modified-Since daria 304 com o
+	 * conteúdo já diferente.
+	 **/
+	static ResourceVersion ofRegions(PageCountCache countCache, String... regions) {
+		return new ResourceVersion(countCache.version(regions), null);
+	}
+
+	/**
+	 * A mesma versão, mas com os parâmetros da requisição (página, ordenação,
+	 * filtros) dentro do ETag, em ordem alfabética. Assim cada combinação tem o
+	 * seu ETag e um If-None-Match de uma página não vale para outra.
+	 **/
+	public ResourceVersion forQuery(Map<String, String[]> parameters) {
+		StringBuilder key = new StringBuilder(eTag).append('?');
+		new TreeMap<>(parameters).forEach((name, values) -> {
+			for (String value : values) {
+				key.append(name).append('=').append(value).append('&');
+			}
+		});
+		return new ResourceVersion(DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)),
+				lastModified);
+	}
+
+	/** A mais recente das datas, ignorando as nulas **/
+	static Instant latest(Instant... instants) {
+		Instant latest = Instant.EPOCH;
+		for (Instant instant : instants) {
+			if (instant != null && instant.isAfter(latest)) {
+				latest = instant;
+			}
+		}
+		return latest;
+	}
+
+	/** Microssegundos desde a época, ou 0 quando a data é nula **/
+	static long micros(Instant instant) {
+		return instant == null ? 0 : instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.dto.RoleDTO;
+import com.devsuperior.dscatalog.entities.Role;
+
+/**
+ * Os perfis (tb_role) em memória, por id e por authority. São poucas linhas que
+ * quase nunca mudam, então gravar um usuário ou conferir uma permissão não
+ * precisa ir no banco.
+ *
+ * O conteúdo é imutável: cada carga monta mapas novos e troca a referência de
+ * uma vez só, então quem lê nunca precisa de lock e nunca enxerga uma carga pela
+ * metade. O UserService carrega o registro na subida da aplicação e recarrega
+ * quando recebe um perfil que não conhece (um perfil novo criado direto no
+ * banco, por exemplo), pelo reload: uma recarga por vez e no máximo uma a cada
+ * dscatalog.role-registry.min-reload-interval, para uma enxurrada de
+ * requisições com ids inventados não virar uma leitura da tb_role por
+ * requisição.
+ **/
+@Component
+public class RoleRegistry {
+
+	private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+	/** System.nanoTime() da última carga; null antes da primeira **/
+	private Long loadedAt;
+
+	@Value("${dscatalog.role-registry.min-reload-interval:5s}")
+	private Duration minReloadInterval = Duration.ofSeconds(5);
+
+	/**
+	 * Recarrega o registro com o loader, a não ser que a última carga seja mais
+	 * recente que o intervalo mínimo. As threads que chegam durante uma recarga
+	 * esperam por ela e usam o resultado, em vez de cada uma ler a tabela de novo.
+	 **/
+	public synchronized void reload(Supplier<? extends Collection<Role>> loader) {
+		if (loadedAt != null && System.nanoTime() - loadedAt < minReloadInterval.toNanos()) {
+			return;
+		}
+		load(loader.get());
+	}
+
+	/** Troca todo o conteúdo do registro pelos perfis informados **/
+	public synchronized void load(Collection<Role> roles) {
+		Map<Long, String> byId = new HashMap<>();
+		Map<String, Long> byAuthority = new HashMap<>();
+		for (Role role : roles) {
+			byId.put(role.getId(), role.getAuthority());
+			byAuthority.put(role.getAuthority(), role.getId());
+		}
+		snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byAuthority));
+		loadedAt = System.nanoTime();
+	}
+
+	public Optional<RoleDTO> findById(Long id) {
+		String authority = snapshot.byId.get(id);
+		return authority == null ? Optional.empty() : Optional.of(new RoleDTO(id, authority));
+	}
+
+	public Optional<RoleDTO> findByAuthority(String authority) {
+		Long id = snapshot.byAuthority.get(authority);
+		return id == null ? Optional.empty() : Optional.of(new RoleDTO(id, authority));
+	}
+
+	/** Os ids da lista que não estão no registro, na ordem em que vieram **/
+	public List<Long> unknown(Collection<Long> ids) {
+		Map<Long, String> byId = snapshot.byId;
+		List<Long> unknown = new ArrayList<>();
+		for (Long id : ids) {
+			if (!byId.containsKey(id)) {
+				unknown.add(id);
+			}
+		}
+		return unknown;
+	}
+
+	private static class Snapshot {
+		final Map<Long, String> byId;
+		final Map<String, Long> byAuthority;
+
+		Snapshot(Map<Long, String> byId, Map<String, Long> byAuthority) {
+			this.byId = byId;
+			this.byAuthority = byAuthority;
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.devsuperior.dscatalog.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tokens de acesso assinados (formato JWT, HS256), sem estado no servidor: o
+ * token carrega o email (sub) e os perfis (authorities) do usuário, então
+ * autenticar uma requisição é só conferir a assinatura HMAC e a validade, sem ir
+ * no banco. Trocar os perfis de um usuário só vale para os tokens emitidos
+ * depois; os antigos continuam com os perfis velhos até expirarem
+ * (dscatalog.token.ttl).
+ *
+ * O segredo vem de dscatalog.token.secret (em Base64, pelo menos 32 bytes). Sem
+ * ele, é gerado um segredo aleatório na subida, e os tokens deixam de valer a
+ * cada restart.
+ **/
+@Component
+public class TokenService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TokenService.class);
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/** Só aceitamos esse cabeçalho: nada de "alg": "none" ou troca de algoritmo **/
+	private static final String HEADER = ENCODER
+			.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+	private final ObjectMapper objectMapper;
+	private final Duration ttl;
+	private final SecretKeySpec key;
+
+	/** O Mac não é thread-safe e criar um custa mais que usar, então cada thread tem o seu **/
+	private final ThreadLocal<Mac> macs;
+
+	public TokenService(ObjectMapper objectMapper, @Value("${dscatalog.token.secret:}") String secret,
+			@Value("${dscatalog.token.ttl:1h}") Duration ttl) {
+		this.objectMapper = objectMapper;
+		this.ttl = ttl;
+		this.key = new SecretKeySpec(secretBytes(secret), ALGORITHM);
+		this.macs = ThreadLocal.withInitial(this::newMac);
+	}
+
+	public Duration getTtl() {
+		return ttl;
+	}
+
+	public String issue(AuthenticatedUser user) {
+		return issue(user.getEmail(), user.getAuthorities(), Instant.now());
+	}
+
+	public String issue(String subject, List<String> authorities, Instant now) {
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("sub", subject);
+		claims.put("authorities", authorities);
+		claims.put("iat", now.getEpochSecond());
+		claims.put("exp", now.plus(ttl).getEpochSecond());
+
+		try {
+			String content = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+			return content + "." + ENCODER.encodeToString(sign(content));
+		} catch (IOException e) {
+			throw new IllegalStateException("Falha ao gerar o token", e);
+		}
+	}
+
+	public Optional<Claims> verify(String token) {
+		return verify(token, Instant.now());
+	}
+
+	/**
+	 * Os dados do token, se a assinatura confere e ele ainda não expirou. A
+	 * assinatura é comparada em tempo constante (MessageDigest.isEqual).
+	 **/
+	public Optional<Claims> verify(String token, Instant now) {
+		if (token == null) {
+			return Optional.empty();
+		}
+		int first = token.indexOf('.');
+		int last = token.lastIndexOf('.');
+		if (first <= 0 || last == first || !HEADER.equals(token.substring(0, first))) {
+			return Optional.empty();
+		}
+
+		try {
+			byte[] signature = DECODER.decode(token.substring(last + 1));
+			if (!MessageDigest.isEqual(sign(token.substring(0, last)), signature)) {
+				return Optional.empty();
+			}
+
+			JsonNode payload = objectMapper.readTree(DECODER.decode(token.substring(first + 1, last)));
+			Instant expiresAt = Instant.ofEpochSecond(payload.path("exp").asLong());
+			if (!now.isBefore(expiresAt)) {
+				return Optional.empty();
+			}
+			List<String> authorities = new ArrayList<>();
+			payload.path("authorities").forEach(node -> authorities.add(node.asText()));
+			return Optional.of(new Claims(payload.path("sub").asText(), authorities, expiresAt));
+		} catch (IllegalArgumentException | IOException e) {
+			return Optional.empty();
+		}
+	}
+
+	private byte[] sign(String content) {
+		return macs.get().doFinal(content.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] secretBytes(String secret) {
+		if (secret == null || secret.isBlank()) {
+			LOG.warn("dscatalog.token.secret não configurado: usando um segredo aleatório, os tokens não sobrevivem a um restart");
+			byte[] random = new byte[32];
+			new SecureRandom().nextBytes(random);
+			return random;
+		}
+		byte[] bytes = Base64.getDecoder().decode(secret);
+		if (bytes.length < 32) {
+			throw new IllegalStateException("dscatalog.token.secret precisa ter pelo menos 32 bytes (256 bits)");
+		}
+		return bytes;
+	}
+
+	/** O que vem dentro de um token válido **/
+	public static final class Claims {
+
+		private final String subject;
+		private final List<String> authorities;
+		private final Instant expiresAt;
+
+		public Claims(String subject, List<String> authorities, Instant expiresAt) {
+			this.subject = subject;
+			this.authorities = List.copyOf(authorities);
+			this.expiresAt = expiresAt;
+		}
+
+		public String getSubject() {
+			return subject;
+		}
+
+		public List<String> getAuthorities() {
+			return authorities;
+		}
+
+		public Instant getExpiresAt() {
+			return expiresAt;
+		}
+
+	}
+
+}
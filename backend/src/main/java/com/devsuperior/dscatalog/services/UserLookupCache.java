@@ -0,0 +1,108 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.entities.Role;
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.repositories.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache dos usuários buscados por email na autenticação (login), para não ir no
+ * banco buscar o usuário e os perfis a cada tentativa. Cada entrada vale por
+ * dscatalog.user-cache.ttl e o cache guarda no máximo
+ * dscatalog.user-cache.max-entries usuários (cheio, é esvaziado, como o
+ * PageCountCache). O UserService invalida o usuário depois do commit de toda
+ * alteração ou exclusão.
+ *
+ * Uma busca que leu o usuário antes de uma alteração ser confirmada não pode
+ * deixá-lo no cache depois do invalidate: senão um usuário apagado, uma senha
+ * trocada ou um perfil ADMIN retirado continuariam valendo até o ttl. Por isso
+ * cada invalidate sobe uma geração, e a busca confere a geração lida antes da
+ * consulta depois de guardar o usuário; se ela mudou, tira a própria entrada.
+ *
+ * O contador dscatalog.user.lookup mostra quantas buscas foram respondidas pelo
+ * cache (outcome=cache_hit) e quantas foram no banco (outcome=executed).
+ **/
+@Component
+public class UserLookupCache {
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+	private final UserRepository repository;
+	private final long ttlNanos;
+	private final int maxEntries;
+	private final Counter cacheHit;
+	private final Counter executed;
+
+	public UserLookupCache(UserRepository repository, MeterRegistry meterRegistry,
+			@Value("${dscatalog.user-cache.ttl:5m}") Duration ttl,
+			@Value("${dscatalog.user-cache.max-entries:10000}") int maxEntries) {
+		this.repository = repository;
+		this.ttlNanos = ttl.toNanos();
+		this.maxEntries = maxEntries;
+		this.cacheHit = meterRegistry.counter("dscatalog.user.lookup", "outcome", "cache_hit");
+		this.executed = meterRegistry.counter("dscatalog.user.lookup", "outcome", "executed");
+	}
+
+	@Transactional(readOnly = true)
+	public Optional<AuthenticatedUser> findByEmail(String email) {
+		Entry entry = entries.get(email);
+		if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+			cacheHit.increment();
+			return Optional.of(entry.user);
+		}
+
+		executed.increment();
+		long before = generation.get();
+		Optional<AuthenticatedUser> user = repository.findWithRolesByEmail(email).map(UserLookupCache::toAuthenticated);
+		if (user.isPresent()) {
+			if (entries.size() >= maxEntries) {
+				entries.clear();
+			}
+			Entry created = new Entry(user.get(), System.nanoTime() + ttlNanos);
+			entries.put(email, created);
+			/**
+			 * Conferida depois do put: um invalidate que subiu a geração antes daqui é
+			 * visto agora, e um que subiu depois já remove esta entrada no removeIf dele.
+			 **/
+			if (generation.get() != before) {
+				entries.remove(email, created);
+			}
+		}
+		return user;
+	}
+
+	/** Chamado pelo UserService depois do commit de uma alteração ou exclusão do usuário **/
+	public void invalidate(Long userId) {
+		generation.incrementAndGet();
+		entries.values().removeIf(entry -> entry.user.getId().equals(userId));
+	}
+
+	private static AuthenticatedUser toAuthenticated(User entity) {
+		return new AuthenticatedUser(entity.getId(), entity.getEmail(), entity.getPassword(),
+				entity.getRoles().stream().map(Role::getAuthority).collect(Collectors.toList()));
+	}
+
+	private static class Entry {
+		final AuthenticatedUser user;
+		final long expiresAt;
+
+		Entry(AuthenticatedUser user, long expiresAt) {
+			this.user = user;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -1,17 +1,26 @@
 package com.devsuperior.dscatalog.services;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.devsuperior.dscatalog.dto.RoleDTO;
 import com.devsuperior.dscatalog.dto.UserDTO;
@@ -20,8 +29,10 @@ import com.devsuperior.dscatalog.entities.Role;
 import com.devsuperior.dscatalog.entities.User;
 import com.devsuperior.dscatalog.repositories.RoleRepository;
 import com.devsuperior.dscatalog.repositories.UserRepository;
+import com.devsuperior.dscatalog.repositories.projections.UserRoleProjection;
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
 
 /**
  * Essa @ registra essa classe como um componente que vai participar do sistema
@@ -31,6 +42,9 @@ import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 @Service
 public class UserService {
 
+	/** Região do PageCountCache com os totais das listagens de users **/
+	public static final String COUNT_REGION = "users";
+
 	/**
 	 * Para acessar as produtos no banco, preciso que meu UserService tenha
 	 * uma dependência com o UserRepository E preciso anotar o
@@ -44,11 +58,34 @@ public class UserService {
 	@Autowired
 	private UserRepository repository;
 
+	@Autowired
+	private PageCountCache countCache;
+
 	@Autowired
 	private RoleRepository roleRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
 	
 	@Autowired
-	private BCryptPasswordEncoder passwordEncoder;
+	private PasswordHasher passwordHasher;
+
+	@Autowired
+	private UserLookupCache userLookupCache;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Carrega os perfis no RoleRegistry assim que a aplicação sobe. A tabela tem
+	 * poucas linhas, então a recarga também é usada quando aparece um perfil que
+	 * o registro ainda não conhece.
+	 **/
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void loadRoles() {
+		roleRegistry.load(roleRepository.findAll());
+	}
 	
 	/**
 	 * Transactional= quando alguma operação envolve transação com o banco, podemos
@@ -61,7 +98,13 @@ public class UserService {
 	 **/
 	@Transactional(readOnly = true)
 	public Page<UserDTO> findAllPaged(Pageable pageable) {
-		Page<User> list = repository.findAll(pageable);
+		/**
+		 * O total da listagem vem do PageCountCache quando possível, assim o SELECT
+		 * COUNT(*) só roda quando o total ainda não é conhecido ou foi invalidado por
+		 * alguma gravação.
+		 **/
+		Page<UserDTO> list = countCache.findPage(COUNT_REGION, "", pageable,
+				p -> repository.findSliceProjected(p).getContent(), p -> repository.findAllProjected(p));
 
 		/**
 		 * Como a camada controladora não pode ter acesso à camada de entidade User,
@@ -87,8 +130,40 @@ public class UserService {
 		 * converter de volta em uma lista com o collectors.tolist().
 		 **/
 
-		return list.map(x -> new UserDTO(x));
+		/**
+		 * Hoje esse map não é mais necessário: o repository já devolve os UserDTO
+		 * prontos (projeção), sem passar pela entidade User, e os perfis da página
+		 * inteira vêm numa segunda consulta.
+		 **/
+
+		addRoles(list.getContent());
+		return list;
+
+	}
+
+	/** Busca os perfis de todos os usuários da lista numa consulta só **/
+	private void addRoles(List<UserDTO> users) {
+		if (users.isEmpty()) {
+			return;
+		}
+		Map<Long, UserDTO> byId = new HashMap<>();
+		users.forEach(dto -> byId.put(dto.getId(), dto));
+
+		for (UserRoleProjection row : repository.findRolesByUserIds(byId.keySet())) {
+			byId.get(row.getUserId()).getRoles().add(new RoleDTO(row.getRoleId(), row.getAuthority()));
+		}
+	}
 
+	/**
+	 * Listagem sem o total: o cliente só fica sabendo se existe próxima página
+	 * (hasNext), e em troca o banco não precisa rodar o SELECT COUNT(*).
+	 **/
+	@Transactional(readOnly = true)
+	public Slice<UserDTO> findAllSliced(Pageable pageable) {
+		countCache.countSkipped(COUNT_REGION);
+		Slice<UserDTO> list = repository.findSliceProjected(pageable);
+		addRoles(list.getContent());
+		return list;
 	}
 
 	@Transactional(readOnly = true)
@@ -99,7 +174,7 @@ public class UserService {
 		 * chamamos de obj O objeto Optional evita que seja trabalhado valor nulo, ou
 		 * seja, o retorno dessa busca nunca será nulo.
 		 **/
-		Optional<User> obj = repository.findById(id);
+		Optional<User> obj = repository.findWithRolesById(id);
 
 		/**
 		 * Recebendo a entidade vinda do objeto optional o enttity recebe o obj, este
@@ -117,13 +192,22 @@ public class UserService {
 		return new UserDTO(entity);
 	}
 
-	@Transactional
+	/**
+	 * Sem @Transactional de propósito: o hash da senha (BCrypt, centenas de ms no
+	 * pool do PasswordHasher) é gerado antes, fora da transação, e só a gravação
+	 * roda dentro dela (transactionTemplate). Assim a conexão do pool fica presa só
+	 * pelo insert, e não durante o hash.
+	 **/
 	public UserDTO insert(UserInsertDTO dto) {
-		User entity = new User();
-		copyDtoToEntity(dto, entity);
-		entity.setPassword(passwordEncoder.encode(dto.getPassword())); //chamando o encoder e encriptando a senha antes de setar
-		entity = repository.save(entity); // o save retorna uma referência para a entidade salva
-		return new UserDTO(entity);
+		String password = passwordHasher.encode(dto.getPassword());
+		return transactionTemplate.execute(status -> {
+			User entity = new User();
+			copyDtoToEntity(dto, entity);
+			entity.setPassword(password);
+			entity = repository.save(entity); // o save retorna uma referência para a entidade salva
+			AfterCommit.run(() -> countCache.invalidate(COUNT_REGION));
+			return toDto(entity);
+		});
 	}
 
 
@@ -133,7 +217,11 @@ public class UserService {
 			User entity = repository.getOne(id);
 			copyDtoToEntity(dto, entity);
 			entity = repository.save(entity);
-			return new UserDTO(entity);
+			AfterCommit.run(() -> {
+				userLookupCache.invalidate(id);
+				countCache.invalidate(COUNT_REGION);
+			});
+			return toDto(entity);
 
 		} catch (EntityNotFoundException e) {
 			throw new ResourceNotFoundException("Id não existe " + id);
@@ -143,6 +231,10 @@ public class UserService {
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			AfterCommit.run(() -> {
+				userLookupCache.invalidate(id);
+				countCache.invalidate(COUNT_REGION);
+			});
 		} catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não existe " + id);
 
@@ -165,9 +257,48 @@ public class UserService {
 
 		entity.getRoles().clear(); //Limpa a coleção
 		
-		for(RoleDTO roleDto : dto.getRoles()) {
-			Role role = roleRepository.getOne(roleDto.getId());
+		/** Os perfis são conferidos no RoleRegistry, sem ir no banco; o getOne só cria a referência **/
+		for (Long roleId : resolveRoles(dto.getRoles())) {
+			Role role = roleRepository.getOne(roleId);
 			entity.getRoles().add(role); 
 		}
 	}
+
+	/**
+	 * Ids (sem repetição) dos perfis informados, conferidos no RoleRegistry. Se
+	 * algum não estiver lá, o registro é recarregado (o perfil pode ter sido
+	 * criado depois da subida), respeitando o intervalo mínimo entre recargas; se
+	 * ainda assim não existir, a requisição volta com 422 listando os ids
+	 * desconhecidos.
+	 **/
+	private Set<Long> resolveRoles(Collection<RoleDTO> roles) {
+		Set<Long> ids = new LinkedHashSet<>();
+		for (RoleDTO roleDto : roles) {
+			if (roleDto.getId() == null) {
+				throw new UnprocessableEntityException("Informe o id de todos os perfis");
+			}
+			ids.add(roleDto.getId());
+		}
+
+		if (!roleRegistry.unknown(ids).isEmpty()) {
+			roleRegistry.reload(roleRepository::findAll);
+			List<Long> unknown = roleRegistry.unknown(ids);
+			if (!unknown.isEmpty()) {
+				throw new UnprocessableEntityException("Perfis não encontrados: " + unknown);
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * UserDTO de um usuário que acabou de ser gravado, com os perfis vindos do
+	 * RoleRegistry em vez de inicializar as referências criadas pelo getOne.
+	 **/
+	private UserDTO toDto(User entity) {
+		UserDTO dto = new UserDTO(entity.getId(), entity.getFirstName(), entity.getLastName(), entity.getEmail());
+		for (Role role : entity.getRoles()) {
+			roleRegistry.findById(role.getId()).ifPresent(dto.getRoles()::add);
+		}
+		return dto;
+	}
 }
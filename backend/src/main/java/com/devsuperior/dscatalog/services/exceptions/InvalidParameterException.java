@@ -0,0 +1,15 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+public class InvalidParameterException extends RuntimeException{
+
+	private static final long serialVersionUID = 1L;
+	
+	public InvalidParameterException(String msg) {
+		
+		/** Passando o argumento  "msg" para o super, invocante o método da classe RuntimeException **/
+		super(msg);
+	}
+	
+	
+
+}
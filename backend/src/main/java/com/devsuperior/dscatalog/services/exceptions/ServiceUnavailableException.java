@@ -0,0 +1,15 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+/**
+ * O servidor está sem capacidade para atender agora (fila cheia, por exemplo).
+ * Vira um 503 com Retry-After, para o cliente tentar de novo depois.
+ **/
+public class ServiceUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ServiceUnavailableException(String msg) {
+		super(msg);
+	}
+
+}
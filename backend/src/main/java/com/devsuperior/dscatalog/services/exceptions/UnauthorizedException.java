@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+/** Credenciais inválidas (email ou senha). Vira um 401 **/
+public class UnauthorizedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UnauthorizedException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+/**
+ * O corpo da requisição está bem formado, mas faz referência a algo que não
+ * existe (por exemplo uma categoria com id desconhecido). Vira um 422.
+ **/
+public class UnprocessableEntityException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UnprocessableEntityException(String msg) {
+		super(msg);
+	}
+
+}
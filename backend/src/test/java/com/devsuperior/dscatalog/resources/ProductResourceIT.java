@@ -1,10 +1,23 @@
 package com.devsuperior.dscatalog.resources;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Duration;
+import java.util.List;
+
 import javax.transaction.Transactional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +27,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
 import com.devsuperior.dscatalog.tests.Factory;
@@ -57,6 +72,25 @@ public class ProductResourceIT {
 		result.andExpect(jsonPath("$.content[2].name").value("PC Gamer Alfa"));
 	}
 
+	@Test
+	public void findAllKeysetDeveRetornarCursorQuandoExistirProximaPagina() throws Exception {
+		ResultActions result = mockMvc
+				.perform(get("/products?after=&size=12&sort=name,asc").accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+		result.andExpect(jsonPath("$.nextCursor").isNotEmpty());
+		result.andExpect(jsonPath("$.totalElements").doesNotExist());
+	}
+
+	@Test
+	public void findAllKeysetDeveRetornarBadRequestQuandoCursorInvalido() throws Exception {
+		ResultActions result = mockMvc
+				.perform(get("/products?after=xyz&size=12").accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	public void updateDeveRetornarNotFoundQuandoIdNaoExistir() throws Exception {
 		ProductDTO productDTO = Factory.createProductDTO();
@@ -94,4 +128,134 @@ public class ProductResourceIT {
 		result.andExpect(jsonPath("$.description").value(expectedDescription));
 	}
 
+	@Test
+	public void findByIdDeveRetornarNotModifiedQuandoETagNaoMudou() throws Exception {
+		String eTag = mockMvc.perform(get("/products/{id}", idExistente).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(header().exists("Last-Modified")).andReturn().getResponse()
+				.getHeader("ETag");
+
+		ResultActions result = mockMvc.perform(
+				get("/products/{id}", idExistente).header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isNotModified());
+		result.andExpect(content().string(""));
+	}
+
+	@Test
+	public void findByIdDeveRetornarOkQuandoProdutoFoiAlteradoDepoisDoETag() throws Exception {
+		String eTag = mockMvc.perform(get("/products/{id}", idExistente).accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getHeader("ETag");
+
+		String jsonBody = objectMapper.writeValueAsString(Factory.createProductDTO());
+		mockMvc.perform(put("/products/{id}", idExistente).content(jsonBody).contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+		ResultActions result = mockMvc.perform(
+				get("/products/{id}", idExistente).header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(header().string("ETag", not(eTag)));
+	}
+
+	@Test
+	public void findAllDeveRetornarNotModifiedQuandoETagNaoMudou() throws Exception {
+		String eTag = mockMvc.perform(get("/products?page=0&size=12").accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getHeader("ETag");
+
+		ResultActions result = mockMvc
+				.perform(get("/products?page=0&size=12").header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void findAllDeveRetornarOutroETagQuandoParametrosMudam() throws Exception {
+		String eTag = mockMvc.perform(get("/products?page=0&size=12").accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getHeader("ETag");
+
+		ResultActions result = mockMvc.perform(
+				get("/products?page=1&size=12").header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(header().string("ETag", not(eTag)));
+	}
+
+	/** Pelo Slice (count=false): o total calculado depois do delete ficaria no cache após o rollback do teste **/
+	@Test
+	public void findAllDeveRetornarOkQuandoProdutoFoiRemovidoDepoisDoETag() throws Exception {
+		String eTag = mockMvc.perform(get("/products?page=0&size=12&count=false").accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(delete("/products/{id}", idExistente)).andExpect(status().isNoContent());
+
+		ResultActions result = mockMvc.perform(
+				get("/products?page=0&size=12&count=false").header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+	}
+
+	@Test
+	public void exportDeveRetornarUmProdutoPorLinhaQuandoCatalogoExistir() throws Exception {
+		MvcResult started = mockMvc.perform(get("/products/export")).andExpect(request().asyncStarted()).andReturn();
+
+		ResultActions result = mockMvc.perform(asyncDispatch(started));
+
+		result.andExpect(status().isOk());
+		result.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+		String[] lines = result.andReturn().getResponse().getContentAsString().split("\n");
+		assertEquals(countTotalProducts, lines.length);
+		ProductDTO first = objectMapper.readValue(lines[0], ProductDTO.class);
+		assertEquals(idExistente, first.getId());
+		assertEquals(1, first.getCategories().size());
+	}
+
+	@Test
+	public void exportDeveUsarOTimeoutDoExportSoNestaRequisicao() throws Exception {
+		MvcResult started = mockMvc.perform(get("/products/export")).andExpect(request().asyncStarted()).andReturn();
+
+		assertEquals(Duration.ofMinutes(30).toMillis(), started.getRequest().getAsyncContext().getTimeout());
+	}
+
+	@Test
+	public void insertAllDeveRetornarBadRequestQuandoAlgumProdutoForInvalido() throws Exception {
+		ProductDTO invalid = Factory.createProductDTO();
+		invalid.setName("");
+		String jsonBody = objectMapper.writeValueAsString(List.of(Factory.createProductDTO(), invalid));
+
+		ResultActions result = mockMvc.perform(post("/products/batch").content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isBadRequest());
+		result.andExpect(jsonPath("$.message").value(containsString("insertAll.dtos[1].name")));
+	}
+
+	@Test
+	public void updateDeveRetornarUnprocessableEntityQuandoCategoriaNaoExistir() throws Exception {
+		ProductDTO productDTO = Factory.createProductDTO();
+		productDTO.getCategories().add(new CategoryDTO(999L, "Inexistente"));
+		String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", idExistente).content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isUnprocessableEntity());
+		result.andExpect(jsonPath("$.message").value("Categorias não encontradas: [999]"));
+	}
+
+	@Test
+	public void findFacetsDeveRetornarUnprocessableEntityQuandoFaixaDePrecoForNaN() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products/facets?priceBucket=NaN").accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isUnprocessableEntity());
+	}
+
+	@Test
+	public void findByIdDeveRetornarServerTimingComComandosSqlETempos() throws Exception {
+		ResultActions result = mockMvc.perform(get("/products/{id}", idExistente).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(header().string("Server-Timing", matchesPattern(
+				"db;dur=\\d+\\.\\d{2};desc=\"\\d+ statements\", app;dur=\\d+\\.\\d{2}")));
+	}
+
 }
@@ -1,6 +1,7 @@
 package com.devsuperior.dscatalog.resources;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -12,6 +13,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -20,12 +22,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.ResourceVersion;
+import com.devsuperior.dscatalog.services.TokenService;
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.Factory;
@@ -39,6 +46,10 @@ public class ProductResourceTests {
 	
 	@MockBean
 	private  ProductService service;
+
+	/** O SecurityConfig entra no @WebMvcTest e precisa do TokenService **/
+	@MockBean
+	private TokenService tokenService;
 	
 	@Autowired
 	private ObjectMapper objectMapper;
@@ -46,6 +57,7 @@ public class ProductResourceTests {
 	private long idExistente;
 	private long idNaoExistente;
 	private long idDependente;
+	private long idConcorrente;
 	private ProductDTO productDTO;
 	private PageImpl<ProductDTO> page; //instancia PageImpl, um objeto concreto. Uso o impl ao invés de page pq da pra instanciar ele com new
 
@@ -56,6 +68,7 @@ public class ProductResourceTests {
 	
 		idExistente = 1;
 		idNaoExistente = 2;
+		idConcorrente = 4;
 		
 		productDTO = Factory.createProductDTO();
 		page = new PageImpl<ProductDTO>(List.of(productDTO));
@@ -63,12 +76,20 @@ public class ProductResourceTests {
 		//Quando eu chamar no service o findAllPage com qualquer argumento, eu vou retornar um obejto page do tipo
 		//PageImpl ProductDTO
 		when(service.findAllPaged(any())).thenReturn(page);
+		when(service.findAllPaged(any(), anyBoolean())).thenReturn(page);
+		when(service.findAllPaged(any(), any(), anyBoolean())).thenReturn(page);
 	
+		when(service.findListVersion()).thenReturn(ResourceVersion.of("1-0", Instant.now()));
+
 		when (service.findById(idExistente)).thenReturn(productDTO);
 		when (service.findById(idNaoExistente)).thenThrow(ResourceNotFoundException.class);
+		when (service.findVersionById(idExistente)).thenReturn(ResourceVersion.of("0-0", Instant.now()));
+		when (service.findVersionById(idNaoExistente)).thenThrow(ResourceNotFoundException.class);
 		
 		when (service.update(eq(idExistente), any())).thenReturn(productDTO);
 		when (service.update(eq(idNaoExistente), any())).thenThrow(ResourceNotFoundException.class);
+		when (service.update(eq(idConcorrente), any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Product.class, idConcorrente));
 		
 		when (service.insert(any())).thenReturn(productDTO);
 		
@@ -118,6 +139,26 @@ public class ProductResourceTests {
 	}
 	
 	
+	@Test
+	public void updateDeveRetornarConflictQuandoOutraGravacaoAlterouOProduto() throws Exception {
+		String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", idConcorrente).content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void updateDeveRetornarPreconditionFailedQuandoOutraGravacaoAlterouOProdutoComIfMatch() throws Exception {
+		String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", idConcorrente).header(HttpHeaders.IF_MATCH, "\"0-0\"")
+				.content(jsonBody).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isPreconditionFailed());
+	}
+
 	@Test
 	public void updateDeveRetornarProductDTOQUandoIdExiste() throws Exception {
 		String jsonBody = objectMapper.writeValueAsString(productDTO);
@@ -0,0 +1,41 @@
+package com.devsuperior.dscatalog.resources;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class PrometheusMetricsIT {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void prometheusDeveriaExporHistogramasDosServicosRepositoriesPoolEHibernate() throws Exception {
+		mockMvc.perform(get("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+		ResultActions result = mockMvc.perform(get("/actuator/prometheus"));
+
+		result.andExpect(status().isOk());
+		result.andExpect(content().string(containsString(
+				"dscatalog_service_seconds_bucket{application=\"dscatalog\",class=\"ProductService\",exception=\"none\",method=\"findById\"")));
+		result.andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")));
+		result.andExpect(content().string(containsString("hikaricp_connections_pending")));
+		result.andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")));
+		result.andExpect(content().string(containsString("hibernate_query_executions_total")));
+		result.andExpect(content().string(containsString("jvm_gc_memory_allocated_bytes_total")));
+	}
+
+}
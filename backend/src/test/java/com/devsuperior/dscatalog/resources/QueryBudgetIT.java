@@ -0,0 +1,193 @@
+package com.devsuperior.dscatalog.resources;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.services.CategoryServices;
+import com.devsuperior.dscatalog.services.PageCountCache;
+import com.devsuperior.dscatalog.tests.Factory;
+import com.devsuperior.dscatalog.tests.QueryBudget;
+import com.devsuperior.dscatalog.tests.RowCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Quantos comandos SQL e quantas linhas lidas cada endpoint pode custar (com o
+ * cache frio). Os números são os medidos nesta base (import.sql mais as duas
+ * categorias do setUp). Roda num H2 só dele e sem @Transactional, para as
+ * gravações irem de fato para o banco (e serem contadas) sem mexer nos dados
+ * dos outros testes; por isso as linhas das leituras contam também com o que o
+ * POST (um produto a mais, com 5 categorias) e o PUT (o produto 1 passa a ter
+ * 5 categorias) gravam, seja qual for a ordem dos testes.
+ *
+ * O ETag das listagens sai da memória (PageCountCache.version), sem comando.
+ * Nenhuma listagem daqui conta o total: a página vem incompleta e o Spring Data
+ * calcula o total por ela.
+ **/
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:querybudget")
+@AutoConfigureMockMvc
+@Import(RowCounter.Config.class)
+public class QueryBudgetIT {
+
+	private static final List<String> NEW_CATEGORIES = List.of("Games", "Celulares");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PageCountCache countCache;
+
+	@Autowired
+	private RowCounter rowCounter;
+
+	@Autowired
+	private CategoryServices categoryService;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	private QueryBudget budget;
+	private long idExistente;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		budget = new QueryBudget(entityManagerFactory, countCache, rowCounter);
+		idExistente = 1L;
+
+		/** O import.sql tem 3 categorias; os cenários de gravação usam 5 **/
+		if (categoryRepository.count() < 5) {
+			NEW_CATEGORIES.forEach(name -> categoryService.insert(new CategoryDTO(null, name)));
+		}
+	}
+
+	/** Banco próprio: o cache de segundo nível é da JVM e não pode levar entidades dele para os outros testes **/
+	@AfterEach
+	void tearDown() {
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	public void findAllProductsDeveriaCustarUmComando() throws Exception {
+		/** Só a página: até 26 produtos **/
+		budget.run("GET /products?size=50", 1, 26, () -> mockMvc
+				.perform(get("/products?page=0&size=50").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findAllProductsComCategoriasDeveriaCustarNoMaximoDoisComandos() throws Exception {
+		/** A página e as categorias da página inteira numa consulta: 26 produtos + até 35 vínculos **/
+		budget.run("GET /products?size=50&expand=categories", 2, 61, () -> mockMvc
+				.perform(get("/products?page=0&size=50&expand=categories").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findAllProductsComFiltroDeveriaCustarUmComando() throws Exception {
+		/** A página filtrada: até 25 produtos da categoria 3 **/
+		budget.run("GET /products?categoryId=3&size=50", 1, 25, () -> mockMvc
+				.perform(get("/products?page=0&size=50&categoryId=3").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findAllProductsSemTotalDeveriaCustarUmComando() throws Exception {
+		/** A página, sem COUNT(*) **/
+		budget.run("GET /products?count=false&size=50", 1, 26, () -> mockMvc
+				.perform(get("/products?page=0&size=50&count=false").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findProductByIdDeveriaCustarNoMaximoTresComandos() throws Exception {
+		/** Versão (ETag), produto e coleção de categorias: 1 + 1 + até 5 linhas **/
+		budget.run("GET /products/{id}", 3, 7, () -> mockMvc
+				.perform(get("/products/{id}", idExistente).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findAllCategoriesDeveriaCustarUmComando() throws Exception {
+		/** A página: 5 categorias **/
+		budget.run("GET /categories?size=50", 1, 5, () -> mockMvc
+				.perform(get("/categories?page=0&size=50").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findAllUsersDeveriaCustarNoMaximoDoisComandos() throws Exception {
+		/** Página e perfis da página inteira: 2 usuários + 3 perfis **/
+		budget.run("GET /users?size=50", 2, 5, () -> mockMvc
+				.perform(get("/users?page=0&size=50").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void findUserByIdDeveriaCustarUmComando() throws Exception {
+		/** Usuário e perfis pelo entity graph: uma linha por perfil **/
+		budget.run("GET /users/{id}", 1, 2, () -> mockMvc
+				.perform(get("/users/{id}", 2L).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void updateProductComCincoCategoriasDeveriaCustarNoMaximoCincoComandos() throws Exception {
+		/**
+		 * Produto, categorias que ele já tinha, as 4 que faltam (um lote), UPDATE e INSERT dos vínculos (JDBC batch):
+		 * 1 + 1 + 4 linhas. Sem o @BatchSize da Category, ou com as referências entrando no Set uma a uma, as 4
+		 * categorias viram 4 SELECTs (8 comandos)
+		 **/
+		String jsonBody = objectMapper.writeValueAsString(productWithFiveCategories());
+
+		budget.run("PUT /products/{id} com 5 categorias", 5, 6, () -> mockMvc
+				.perform(put("/products/{id}", idExistente).content(jsonBody).contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	public void insertProductComCincoCategoriasDeveriaCustarNoMaximoQuatroComandos() throws Exception {
+		/** Categorias (um lote), sequence, INSERT do produto e INSERT dos vínculos (JDBC batch): 5 + 1 linhas **/
+		ProductDTO productDTO = productWithFiveCategories();
+		productDTO.setId(null);
+		String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+		budget.run("POST /products com 5 categorias", 4, 6, () -> mockMvc
+				.perform(post("/products").content(jsonBody).contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated()));
+	}
+
+	private ProductDTO productWithFiveCategories() {
+		ProductDTO productDTO = Factory.createProductDTO();
+		productDTO.getCategories().clear();
+		categoryRepository.findAllIds().stream().limit(5)
+				.forEach(id -> productDTO.getCategories().add(new CategoryDTO(id, null)));
+		return productDTO;
+	}
+
+}
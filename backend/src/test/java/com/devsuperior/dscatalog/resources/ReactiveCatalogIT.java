@@ -0,0 +1,167 @@
+package com.devsuperior.dscatalog.resources;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+
+import reactor.netty.DisposableServer;
+
+@SpringBootTest(properties = { "dscatalog.reactive.enabled=true", "dscatalog.reactive.port=0" })
+public class ReactiveCatalogIT {
+
+	@Autowired
+	private DisposableServer reactiveReadServer;
+
+	private WebTestClient client;
+
+	private long idExistente;
+	private long idNaoExistente;
+	private long countTotalProducts;
+	private long countPcGamer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		client = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveReadServer.port()).build();
+
+		idExistente = 1L;
+		idNaoExistente = 1000L;
+		countTotalProducts = 25L;
+		countPcGamer = 21L;
+	}
+
+	@Test
+	public void findAllDeveRetornarPaginaOrdenadaQuandoOrdenarPorNome() {
+		client.get().uri("/products?page=0&size=12&sort=name,asc").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(countTotalProducts)
+				.jsonPath("$.content.length()").isEqualTo(12)
+				.jsonPath("$.content[0].name").isEqualTo("Macbook Pro")
+				.jsonPath("$.content[1].name").isEqualTo("PC Gamer")
+				.jsonPath("$.content[2].name").isEqualTo("PC Gamer Alfa");
+	}
+
+	@Test
+	public void findAllDeveRetornarBadRequestQuandoOrdenarPorPropriedadeDesconhecida() {
+		client.get().uri("/products?sort=password,asc").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void findAllDeveRetornarSoProdutosEmTodasAsCategoriasQuandoModoAnd() {
+		client.get().uri("/products?categoryId=1,3&categoryMode=and").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(1)
+				.jsonPath("$.content[0].name").isEqualTo("Smart TV");
+	}
+
+	@Test
+	public void findAllDeveFiltrarPorCategoriaEPrecoQuandoInformados() {
+		client.get().uri("/products?categoryId=2&minPrice=100&maxPrice=200").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(1)
+				.jsonPath("$.content[0].name").isEqualTo("Rails for Dummies");
+	}
+
+	@Test
+	public void findAllDeveFiltrarPorDataQuandoInformarFaixa() {
+		client.get().uri("/products?to=2020-07-13T23:59:59Z").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(1)
+				.jsonPath("$.content[0].id").isEqualTo(idExistente);
+	}
+
+	@Test
+	public void findAllDeveRetornarBadRequestQuandoFiltroForInvalido() {
+		client.get().uri("/products?minPrice=abc").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void findAllDeveRetornarCategoriasQuandoExpandCategories() {
+		client.get().uri("/products?page=0&size=2&sort=id,asc&expand=categories").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.content[0].categories.length()").isEqualTo(1)
+				.jsonPath("$.content[1].categories.length()").isEqualTo(2);
+	}
+
+	@Test
+	public void findAllDeveRetornarSliceSemTotalQuandoCountFalse() {
+		client.get().uri("/products?page=0&size=12&count=false").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").doesNotExist()
+				.jsonPath("$.content.length()").isEqualTo(12)
+				.jsonPath("$.last").isEqualTo(false);
+	}
+
+	@Test
+	public void findAllDeveRetornarPaginasPorCursorQuandoInformarAfter() {
+		String nextCursor = client.get().uri("/products?after=&size=24&sort=name,asc")
+				.accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody(CursorPageDTO.class)
+				.returnResult().getResponseBody().getNextCursor();
+
+		client.get().uri("/products?after={after}&size=24&sort=name,asc", nextCursor)
+				.accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.content.length()").isEqualTo(1)
+				.jsonPath("$.content[0].name").isEqualTo("The Lord of the Rings")
+				.jsonPath("$.nextCursor").doesNotExist();
+	}
+
+	@Test
+	public void findAllDeveRetornarBadRequestQuandoCursorTiverFiltro() {
+		client.get().uri("/products?after=&categoryId=3").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void findAllDeveRetornarBadRequestQuandoCursorForInvalido() {
+		client.get().uri("/products?after=xyz").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void searchDeveRetornarProdutosQueContemOTermo() {
+		client.get().uri("/products/search?q=gamer&size=5").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(countPcGamer)
+				.jsonPath("$.content.length()").isEqualTo(5);
+	}
+
+	@Test
+	public void findByIdDeveRetornarProdutoComCategoriasQuandoIdExistir() {
+		client.get().uri("/products/{id}", idExistente).accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.id").isEqualTo(idExistente)
+				.jsonPath("$.name").isEqualTo("The Lord of the Rings")
+				.jsonPath("$.categories.length()").isEqualTo(1);
+	}
+
+	@Test
+	public void findByIdDeveRetornarNotFoundQuandoIdNaoExistir() {
+		client.get().uri("/products/{id}", idNaoExistente).exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	public void findAllCategoriesDeveRetornarTodasAsCategorias() {
+		client.get().uri("/categories").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.totalElements").isEqualTo(3)
+				.jsonPath("$.content[0].name").isEqualTo("Livros");
+	}
+
+}
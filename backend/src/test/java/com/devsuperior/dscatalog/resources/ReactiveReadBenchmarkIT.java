@@ -0,0 +1,101 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+
+/**
+ * Mesma carga de leitura (GET /products paginado) contra a API servlet ou contra
+ * a pilha reativa, com o mesmo número de requisições simultâneas. Cada pilha é
+ * medida numa JVM própria, escolhida por -Dbenchmark.stack, e o profile
+ * benchmark fixa o heap (-Xms/-Xmx em benchmark.heap), então as duas rodadas
+ * partem do mesmo heap e uma não herda o lixo da outra:
+ *
+ * mvn -P benchmark test -Dtest=ReactiveReadBenchmarkIT -Dbenchmark.stack=servlet
+ * mvn -P benchmark test -Dtest=ReactiveReadBenchmarkIT -Dbenchmark.stack=reactive
+ *
+ * Requisições por segundo, o pico de heap durante a carga e o tempo de GC saem
+ * no log; o teste só garante que todas as respostas voltaram 200. O cliente de
+ * carga roda na mesma JVM nas duas rodadas.
+ **/
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = { "dscatalog.reactive.enabled=true",
+		"dscatalog.reactive.port=0" })
+public class ReactiveReadBenchmarkIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReactiveReadBenchmarkIT.class);
+
+	private static final int CONCURRENCY = 256;
+	private static final int WARMUP = 2_000;
+	private static final int REQUESTS = 20_000;
+	private static final String URI = "/products?page=0&size=12&sort=name,asc";
+
+	@LocalServerPort
+	private int servletPort;
+
+	@Autowired
+	private DisposableServer reactiveReadServer;
+
+	@Test
+	public void pilhaMedidaDeveriaResponderTodasAsRequisicoes() {
+		String stack = System.getProperty("benchmark.stack", "servlet");
+		int port = "reactive".equals(stack) ? reactiveReadServer.port() : servletPort;
+		Assertions.assertEquals(REQUESTS, run(stack, port));
+	}
+
+	private long run(String stack, int port) {
+		WebClient client = WebClient.create("http://localhost:" + port);
+		load(client, WARMUP);
+
+		List<MemoryPoolMXBean> heap = heapPools();
+		heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+		long gcBefore = gcMillis();
+
+		long start = System.nanoTime();
+		long ok = load(client, REQUESTS);
+		long elapsed = System.nanoTime() - start;
+
+		long peak = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+		LOG.info("{}: {} req/s com {} simultaneas, pico de heap {} MB (max {} MB), GC {} ms", stack,
+				REQUESTS * 1_000_000_000L / elapsed, CONCURRENCY, peak / (1024 * 1024),
+				Runtime.getRuntime().maxMemory() / (1024 * 1024), gcMillis() - gcBefore);
+		return ok;
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP)
+				.collect(Collectors.toList());
+	}
+
+	private static long gcMillis() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+	}
+
+	private static long load(WebClient client, int requests) {
+		return Flux.range(0, requests)
+				.flatMap(i -> client.get().uri(URI).retrieve().toBodilessEntity(), CONCURRENCY)
+				.filter(response -> response.getStatusCode().is2xxSuccessful())
+				.count()
+				.block(Duration.ofMinutes(5));
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.devsuperior.dscatalog.resources;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.devsuperior.dscatalog.services.TokenService;
+
+@SpringBootTest(properties = "dscatalog.security.enabled=true")
+@AutoConfigureMockMvc
+public class SecurityConfigIT {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@Test
+	public void h2ConsoleNaoDeveriaAbrirNemParaAdminComASegurancaLigada() throws Exception {
+		String admin = "Bearer " + tokenService.issue("maria@gmail.com", List.of("ROLE_OPERATOR", "ROLE_ADMIN"), Instant.now());
+
+		mockMvc.perform(get("/h2-console/")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/h2-console/").header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isForbidden());
+	}
+
+	@Test
+	public void leituraDoCatalogoDeveriaContinuarPublica() throws Exception {
+		mockMvc.perform(get("/products/{id}", 1L)).andExpect(status().isOk());
+	}
+
+}
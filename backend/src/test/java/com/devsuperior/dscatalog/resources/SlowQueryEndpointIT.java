@@ -0,0 +1,119 @@
+package com.devsuperior.dscatalog.resources;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.devsuperior.dscatalog.config.SlowQueryLog;
+import com.devsuperior.dscatalog.dto.SlowQueryDTO;
+import com.devsuperior.dscatalog.services.TokenService;
+
+/**
+ * Com threshold 0 todo comando entra no log. O findVersionById sempre vai ao
+ * banco (o findById pode sair do cache de segundo nível). O slow-query log só
+ * sobe com a segurança ligada, então as chamadas levam o token.
+ **/
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:slowquery", "dscatalog.security.enabled=true",
+		"dscatalog.slow-query.enabled=true", "dscatalog.slow-query.threshold=0ms", "dscatalog.slow-query.binds=true",
+		"dscatalog.slow-query.explain=true" })
+@AutoConfigureMockMvc
+public class SlowQueryEndpointIT {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	private String admin;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		admin = "Bearer " + tokenService.issue("maria@gmail.com", List.of("ROLE_OPERATOR", "ROLE_ADMIN"), Instant.now());
+		mockMvc.perform(delete("/actuator/slowqueries").header(HttpHeaders.AUTHORIZATION, admin))
+				.andExpect(status().isNoContent());
+	}
+
+	/** Banco próprio: o cache de segundo nível é da JVM e não pode levar entidades dele para os outros testes **/
+	@AfterEach
+	void tearDown() {
+		emf.getCache().evictAll();
+	}
+
+	@Test
+	public void slowQueriesDeveriaTrazerSqlParametrosEMetodoDeServico() throws Exception {
+		mockMvc.perform(get("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+		ResultActions result = mockMvc.perform(get("/actuator/slowqueries").header(HttpHeaders.AUTHORIZATION, admin));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$[*].caller", hasItem("ProductService.findVersionById")));
+		result.andExpect(jsonPath("$[?(@.caller == 'ProductService.findVersionById')].sql", hasItem(startsWith("select"))));
+		result.andExpect(jsonPath("$[?(@.caller == 'ProductService.findVersionById')].binds", hasItem("{1: 1}")));
+	}
+
+	@Test
+	public void slowQueriesDeveriaOmitirParametrosDaTabelaDeUsuarios() throws Exception {
+		mockMvc.perform(get("/users/{id}", 1L).header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+
+		ResultActions result = mockMvc.perform(get("/actuator/slowqueries").header(HttpHeaders.AUTHORIZATION, admin));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$[?(@.sql =~ /.*tb_user.*/)].binds", hasItem("[omitidos: tb_user]")));
+		result.andExpect(jsonPath("$[?(@.sql =~ /.*tb_user.*/)].binds", everyItem(startsWith("[omitidos"))));
+	}
+
+	@Test
+	public void slowQueriesDeveriaTrazerPlanoPelaConexaoPropriaDoExplain() throws Exception {
+		mockMvc.perform(get("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+		Optional<SlowQueryDTO> entry = slowQueryLog.findAll().stream()
+				.filter(query -> "ProductService.findVersionById".equals(query.getCaller())).findFirst();
+		Assertions.assertTrue(entry.isPresent());
+
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (entry.get().getPlan() == null && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		Assertions.assertNotNull(entry.get().getPlan());
+		Assertions.assertFalse(entry.get().getPlan().startsWith("EXPLAIN falhou"), entry.get().getPlan());
+	}
+
+	@Test
+	public void slowQueriesDeveriaSerSoParaAdmin() throws Exception {
+		String operator = "Bearer " + tokenService.issue("alex@gmail.com", List.of("ROLE_OPERATOR"), Instant.now());
+
+		mockMvc.perform(get("/actuator/slowqueries")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/slowqueries").header(HttpHeaders.AUTHORIZATION, operator))
+				.andExpect(status().isForbidden());
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.devsuperior.dscatalog.dto.CredentialsDTO;
+import com.devsuperior.dscatalog.services.exceptions.UnauthorizedException;
+
+@ExtendWith(SpringExtension.class)
+public class AuthServiceTests {
+
+	@InjectMocks
+	private AuthService service;
+
+	@Mock
+	private UserLookupCache userLookupCache;
+
+	@Mock
+	private PasswordHasher passwordHasher;
+
+	@Mock
+	private TokenService tokenService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Mockito.when(passwordHasher.encode(ArgumentMatchers.anyString())).thenReturn("dummy");
+		Mockito.when(userLookupCache.findByEmail("ninguem@gmail.com")).thenReturn(Optional.empty());
+		service.init();
+	}
+
+	@Test
+	public void loginDeveriaConferirASenhaMesmoQuandoEmailNaoExistir() {
+		CredentialsDTO credentials = new CredentialsDTO("ninguem@gmail.com", "123456");
+
+		Assertions.assertThrows(UnauthorizedException.class, () -> service.login(credentials));
+
+		Mockito.verify(passwordHasher).matches("123456", "dummy");
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Num H2 só dele: os produtos gerados não podem aparecer nas contagens dos
+ * outros testes, que usam o testdb. O cache de segundo nível (Ehcache) é um só
+ * na JVM, então no final ele é esvaziado, para as categorias lidas deste banco
+ * na subida não aparecerem no testdb com os mesmos ids.
+ **/
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:dataset", "dscatalog.dataset.products=2000",
+		"dscatalog.dataset.categories=10", "dscatalog.dataset.users=50", "dscatalog.dataset.batch-size=100",
+		"dscatalog.dataset.chunk-size=300", "dscatalog.dataset.threads=4" })
+@ActiveProfiles({ "test", "dataset" })
+public class DatasetGeneratorIT {
+
+	@Autowired
+	private DatasetGenerator generator;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@AfterEach
+	void tearDown() {
+		emf.getCache().evictAll();
+	}
+
+	@Test
+	public void generateDeveriaGerarOsMesmosDadosComAMesmaSemente() throws Exception {
+		long before = count("tb_product");
+
+		generator.generate();
+
+		Assertions.assertEquals(before + 2000, count("tb_product"));
+		List<String> first = jdbcTemplate.queryForList(
+				"SELECT name || '|' || price FROM tb_product WHERE id BETWEEN ? AND ? ORDER BY id", String.class,
+				before - 1999, before);
+		List<String> second = jdbcTemplate.queryForList(
+				"SELECT name || '|' || price FROM tb_product WHERE id BETWEEN ? AND ? ORDER BY id", String.class,
+				before + 1, before + 2000);
+		Assertions.assertEquals(2000, first.size());
+		Assertions.assertEquals(first, second);
+	}
+
+	@Test
+	public void generateDeveriaLigarTodoProdutoAUmaCategoriaETodoUsuarioAUmPerfil() {
+		Assertions.assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_product p WHERE NOT EXISTS "
+				+ "(SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id)", Long.class));
+		Assertions.assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_user u WHERE NOT EXISTS "
+				+ "(SELECT 1 FROM tb_user_role ur WHERE ur.user_id = u.id)", Long.class));
+	}
+
+	@Test
+	public void generateDeveriaAvancarOsIdsParaOsInsertsDaAplicacao() {
+		long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_category", Long.class);
+
+		jdbcTemplate.update("INSERT INTO tb_category (name) VALUES ('Nova')");
+
+		Assertions.assertEquals(maxId + 1,
+				jdbcTemplate.queryForObject("SELECT id FROM tb_category WHERE name = 'Nova'", Long.class));
+	}
+
+	private long count(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PageCountCacheTests {
+
+	private PageCountCache cache;
+	private Pageable pageable;
+	private AtomicInteger countQueries;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		cache = new PageCountCache(new SimpleMeterRegistry(), Duration.ofSeconds(60), 1000);
+		pageable = PageRequest.of(0, 10);
+		countQueries = new AtomicInteger();
+	}
+
+	@Test
+	public void findPageDeveriaReaproveitarOTotalGuardado() {
+		findPage(25L, null);
+
+		Page<String> page = findPage(99L, null);
+
+		Assertions.assertEquals(25L, page.getTotalElements());
+		Assertions.assertEquals(1, countQueries.get());
+	}
+
+	@Test
+	public void findPageNaoDeveriaReaproveitarTotalCalculadoDuranteUmaGravacao() {
+		/** O invalidate cai entre o COUNT e o put do total **/
+		findPage(25L, () -> cache.invalidate("products"));
+
+		Page<String> page = findPage(26L, null);
+
+		Assertions.assertEquals(26L, page.getTotalElements());
+		Assertions.assertEquals(2, countQueries.get());
+	}
+
+	@Test
+	public void versionDeveriaMudarQuandoAlgumaRegiaoForInvalidada() {
+		String version = cache.version("products", "categories");
+		Assertions.assertEquals(version, cache.version("products", "categories"));
+
+		cache.invalidate("categories");
+
+		Assertions.assertNotEquals(version, cache.version("products", "categories"));
+	}
+
+	@Test
+	public void versionDeveriaMudarAcadaTtlMesmoSemGravacao() throws InterruptedException {
+		cache = new PageCountCache(new SimpleMeterRegistry(), Duration.ofMillis(20), 1000);
+		String version = cache.version("products");
+
+		Thread.sleep(50);
+
+		Assertions.assertNotEquals(version, cache.version("products"));
+	}
+
+	@Test
+	public void versionNaoDeveriaCoincidirEntreInstancias() {
+		PageCountCache other = new PageCountCache(new SimpleMeterRegistry(), Duration.ofSeconds(60), 1000);
+
+		Assertions.assertNotEquals(cache.version("products"), other.version("products"));
+	}
+
+	private Page<String> findPage(long total, Runnable duringCount) {
+		return cache.findPage("products", "all", pageable, p -> List.of("a"), p -> {
+			countQueries.incrementAndGet();
+			if (duringCount != null) {
+				duringCount.run();
+			}
+			return new PageImpl<>(List.of("a"), p, total);
+		});
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordHasherTests {
+
+	@Test
+	public void calibrateDeveriaFicarNoCustoMinimoQuandoTargetMenorQueUmHash() {
+		Assertions.assertEquals(4, PasswordHasher.calibrate(Duration.ofNanos(1), 4, 8));
+	}
+
+	@Test
+	public void calibrateDeveriaRespeitarOCustoMaximoQuandoTargetMuitoAlto() {
+		Assertions.assertEquals(6, PasswordHasher.calibrate(Duration.ofMinutes(1), 4, 6));
+	}
+
+	@Test
+	public void encodeDeveriaGerarHashValidoQuandoSenhaInformada() {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		PasswordHasher hasher = new PasswordHasher(encoder, meterRegistry, 1, 4);
+
+		String hash = hasher.encode("123456");
+
+		Assertions.assertTrue(encoder.matches("123456", hash));
+		Assertions.assertEquals(1, meterRegistry.get("dscatalog.password.hash").timer().count());
+		Assertions.assertEquals(4.0, meterRegistry.get("dscatalog.password.bcrypt.cost").gauge().value());
+		hasher.shutdown();
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.tests.Factory;
+
+/**
+ * Compara o cadastro um a um (ProductService.insert) com o cadastro em lote
+ * (ProductService.insertAll). As linhas por segundo de cada caminho saem no log;
+ * o teste só garante que os dois inserem a mesma quantidade de produtos.
+ *
+ * Sem @Transactional: cada insert faz o commit dele, como numa requisição de
+ * verdade, e por isso roda num H2 só dele (os produtos não podem aparecer nas
+ * contagens dos outros testes). O cache de segundo nível (Ehcache) é um só na
+ * JVM, então no final ele é esvaziado, para os produtos deste banco não
+ * aparecerem no testdb com os mesmos ids. Só roda com -P benchmark.
+ **/
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batchinsert")
+public class ProductBatchInsertBenchmarkIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProductBatchInsertBenchmarkIT.class);
+
+	private static final int PRODUCTS = 5000;
+
+	@Autowired
+	private ProductService service;
+
+	@Autowired
+	private ProductRepository repository;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@AfterEach
+	void tearDown() {
+		emf.getCache().evictAll();
+	}
+
+	@Test
+	public void insertAllDeveriaInserirOMesmoQueInsertUmAUm() {
+		long before = repository.count();
+
+		long start = System.nanoTime();
+		for (ProductDTO dto : products()) {
+			service.insert(dto);
+		}
+		report("insert", System.nanoTime() - start);
+
+		start = System.nanoTime();
+		service.insertAll(products());
+		report("insertAll", System.nanoTime() - start);
+
+		Assertions.assertEquals(before + 2 * PRODUCTS, repository.count());
+	}
+
+	private List<ProductDTO> products() {
+		List<ProductDTO> list = new ArrayList<>();
+		for (int i = 0; i < PRODUCTS; i++) {
+			list.add(Factory.createProductDTO());
+		}
+		return list;
+	}
+
+	private void report(String name, long elapsed) {
+		LOG.info("batch insert[{}]: {} rows/s ({} ms for {} products)", name, PRODUCTS * 1_000_000_000L / elapsed,
+				elapsed / 1_000_000, PRODUCTS);
+	}
+
+}
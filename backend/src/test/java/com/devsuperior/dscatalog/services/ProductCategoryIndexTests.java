@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.repositories.projections.ProductCategoryProjection;
+
+public class ProductCategoryIndexTests {
+
+	private ProductCategoryIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new ProductCategoryIndex();
+		index.load(Stream.of(row(1L, 1L), row(2L, 1L), row(2L, 2L), row(3L, 2L), row(1_000_000L, 3L)));
+	}
+
+	@Test
+	public void countsDeveriaContarSoOsProdutosInformados() {
+		Assertions.assertEquals(Map.of(1L, 2, 2L, 2, 3L, 1), index.counts(bits(1, 2, 3, 1_000_000)));
+		Assertions.assertEquals(Map.of(1L, 1, 2L, 1), index.counts(bits(2)));
+		Assertions.assertEquals(Map.of(), index.counts(new BitSet()));
+	}
+
+	@Test
+	public void countsNaoDeveriaAlterarOsBitmapsNemOsIds() {
+		BitSet ids = bits(2, 3);
+
+		index.counts(ids);
+
+		Assertions.assertEquals(bits(2, 3), ids);
+		Assertions.assertEquals(bits(1, 2, 3), index.match(List.of(1L, 2L), false));
+	}
+
+	private static BitSet bits(int... ids) {
+		BitSet result = new BitSet();
+		for (int id : ids) {
+			result.set(id);
+		}
+		return result;
+	}
+
+	private static ProductCategoryProjection row(Long productId, Long categoryId) {
+		return new ProductCategoryProjection() {
+			@Override
+			public Long getProductId() {
+				return productId;
+			}
+
+			@Override
+			public Long getCategoryId() {
+				return categoryId;
+			}
+
+			@Override
+			public String getCategoryName() {
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.repositories.projections.ProductColumnsProjection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductColumnIndexTests {
+
+	private ProductColumnIndex index;
+	private BitSet all;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new ProductColumnIndex(new SimpleMeterRegistry());
+		index.load(Stream.of(row(1L, 90.5, "2020-07-13T20:50:07Z"), row(2L, 2190.0, "2020-07-14T10:00:00Z"),
+				row(3L, 1250.0, "2020-07-14T10:00:00Z"), row(4L, null, "2020-07-15T10:00:00Z")));
+		all = new BitSet();
+		all.set(1, 5);
+	}
+
+	@Test
+	public void priceRangeDeveriaIncluirOsLimites() {
+		Assertions.assertEquals(bits(1, 3), index.priceRange(90.5, 1250.0));
+		Assertions.assertEquals(bits(2, 3), index.priceRange(1000.0, null));
+	}
+
+	@Test
+	public void dateRangeDeveriaUsarBuscaBinariaNosDoisLimites() {
+		Assertions.assertEquals(bits(2, 3), index.dateRange(Instant.parse("2020-07-14T00:00:00Z"),
+				Instant.parse("2020-07-14T10:00:00Z")));
+	}
+
+	@Test
+	public void pageDeveriaOrdenarPorPrecoComNulosNoFim() {
+		Assertions.assertEquals(List.of(1L, 3L, 2L, 4L), index.page("price", all, 0, 10, true));
+		Assertions.assertEquals(List.of(2L, 3L, 1L, 4L), index.page("price", all, 0, 10, false));
+		Assertions.assertEquals(List.of(2L), index.page("price", all, 2, 1, true));
+	}
+
+	@Test
+	public void updateDeveriaMudarAFaixaSemRecarregarOIndice() {
+		index.update(1L, 5000.0, Instant.parse("2020-07-13T20:50:07Z"));
+		index.update(4L, 10.0, Instant.parse("2020-07-15T10:00:00Z"));
+		index.remove(3L);
+
+		Assertions.assertEquals(bits(4), index.priceRange(null, 100.0));
+		Assertions.assertEquals(bits(1, 2), index.priceRange(2000.0, null));
+		Assertions.assertEquals(List.of(4L, 2L, 1L), index.page("price", all, 0, 10, true));
+	}
+
+	@Test
+	public void updateDeveriaMarcarOIndiceComoIncompletoQuandoIdNaoCabeNoBitmap() {
+		Assertions.assertTrue(index.isComplete());
+
+		index.update(1L + Integer.MAX_VALUE, 10.0, Instant.parse("2020-07-15T10:00:00Z"));
+
+		Assertions.assertFalse(index.isComplete());
+		Assertions.assertEquals(bits(1), index.priceRange(null, 100.0));
+	}
+
+	private static BitSet bits(int... ids) {
+		BitSet result = new BitSet();
+		for (int id : ids) {
+			result.set(id);
+		}
+		return result;
+	}
+
+	private static ProductColumnsProjection row(Long id, Double price, String date) {
+		return new ProductColumnsProjection() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public Double getPrice() {
+				return price;
+			}
+
+			@Override
+			public Instant getDate() {
+				return Instant.parse(date);
+			}
+		};
+	}
+
+}
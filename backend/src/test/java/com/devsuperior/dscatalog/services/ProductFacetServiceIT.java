@@ -0,0 +1,95 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductFacetsDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
+
+@SpringBootTest
+@Transactional
+public class ProductFacetServiceIT {
+
+	@Autowired
+	private ProductFacetService service;
+
+	@Autowired
+	private PageCountCache countCache;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Test
+	public void findFacetsDeveriaContarProdutosPorCategoriaEFaixaDePreco() {
+		ProductFacetsDTO result = service.findFacets(new ProductFilterDTO(), "", 1000.0);
+
+		Assertions.assertEquals(25, result.getTotal());
+
+		CategoryFacetDTO first = result.getCategories().get(0);
+		Assertions.assertEquals(3L, first.getId());
+		Assertions.assertEquals(23, first.getCount());
+
+		Assertions.assertEquals(25, result.getPrices().stream().mapToLong(x -> x.getCount()).sum());
+		Assertions.assertEquals(0.0, result.getPrices().get(0).getFrom());
+		Assertions.assertEquals(2, result.getPrices().get(0).getCount());
+	}
+
+	@Test
+	public void findFacetsDeveriaRespeitarFiltroEBusca() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(2L));
+
+		ProductFacetsDTO result = service.findFacets(filter, "lord", 1000.0);
+
+		Assertions.assertEquals(1, result.getTotal());
+		Assertions.assertEquals(1, result.getCategories().size());
+		Assertions.assertEquals("Eletrônicos", result.getCategories().get(0).getName());
+	}
+
+	@Test
+	public void findFacetsDeveriaLancarUnprocessableEntityExceptionQuandoFaixaNaoForFinitaEPositiva() {
+		for (double priceBucket : new double[] { 0.0, -10.0, Double.NaN, Double.POSITIVE_INFINITY }) {
+			Assertions.assertThrows(UnprocessableEntityException.class,
+					() -> service.findFacets(new ProductFilterDTO(), "", priceBucket));
+		}
+	}
+
+	@Test
+	public void findFacetsDeveriaUsarOCacheAteAlgumaGravacao() {
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		service.findFacets(new ProductFilterDTO(), "", 500.0);
+
+		statistics.clear();
+		service.findFacets(new ProductFilterDTO(), "", 500.0);
+		Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+
+		countCache.invalidate(ProductService.COUNT_REGION);
+		service.findFacets(new ProductFilterDTO(), "", 500.0);
+		Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void findFacetsNaoDeveriaDeixarQuemChamaAlterarOCache() {
+		ProductFacetsDTO first = service.findFacets(new ProductFilterDTO(), "", 250.0);
+		first.getCategories().clear();
+		first.getPrices().get(0).setCount(999);
+
+		ProductFacetsDTO second = service.findFacets(new ProductFilterDTO(), "", 250.0);
+
+		Assertions.assertNotSame(first, second);
+		Assertions.assertEquals(3, second.getCategories().size());
+		Assertions.assertNotEquals(999, second.getPrices().get(0).getCount());
+	}
+
+}
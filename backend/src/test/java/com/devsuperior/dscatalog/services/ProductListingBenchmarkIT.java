@@ -0,0 +1,110 @@
+package com.devsuperior.dscatalog.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.tests.Factory;
+
+/**
+ * Compara a listagem antiga (entidades Product convertidas em ProductDTO) com a
+ * projeção direto no DTO. O resultado (tempo médio e bytes alocados por página)
+ * sai no log; o teste só garante que os dois caminhos devolvem o mesmo conteúdo.
+ **/
+@SpringBootTest
+@Transactional
+public class ProductListingBenchmarkIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProductListingBenchmarkIT.class);
+
+	private static final int PRODUCTS = 2000;
+	private static final int PAGE_SIZE = 100;
+	private static final int ROUNDS = 20;
+
+	@Autowired
+	private ProductRepository repository;
+
+	@Autowired
+	private EntityManager em;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		List<Product> extra = new ArrayList<>();
+		for (int i = 0; i < PRODUCTS; i++) {
+			Product product = Factory.createProduct();
+			product.setId(null);
+			extra.add(product);
+		}
+		repository.saveAll(extra);
+		em.flush();
+		em.clear();
+	}
+
+	@Test
+	public void projecaoDeveriaRetornarOMesmoConteudoDaListagemPorEntidade() {
+		Supplier<List<ProductDTO>> entities = () -> readAllPages(true);
+		Supplier<List<ProductDTO>> projection = () -> readAllPages(false);
+
+		List<ProductDTO> expected = entities.get();
+		List<ProductDTO> result = projection.get();
+
+		measure("entity", entities);
+		measure("projection", projection);
+
+		Assertions.assertEquals(ids(expected), ids(result));
+	}
+
+	private List<ProductDTO> readAllPages(boolean useEntities) {
+		List<ProductDTO> result = new ArrayList<>();
+		int pages = (PRODUCTS + 25) / PAGE_SIZE + 1;
+		for (int page = 0; page < pages; page++) {
+			PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE);
+			if (useEntities) {
+				result.addAll(repository.findAll(pageRequest).map(x -> new ProductDTO(x)).getContent());
+			} else {
+				result.addAll(repository.findAllProjected(pageRequest).getContent());
+			}
+			/** cada página é uma requisição diferente, com o contexto de persistência vazio **/
+			em.clear();
+		}
+		return result;
+	}
+
+	private void measure(String name, Supplier<List<ProductDTO>> path) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		long bytes = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			path.get();
+		}
+		long elapsed = System.nanoTime() - start;
+		bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+		LOG.info("listing[{}]: {} ms/round, {} KB allocated/round", name, elapsed / ROUNDS / 1_000_000,
+				bytes / ROUNDS / 1024);
+	}
+
+	private List<Long> ids(List<ProductDTO> list) {
+		return list.stream().map(ProductDTO::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+
+public class ProductSearchIndexTests {
+
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new ProductSearchIndex();
+		index.load(Stream.of(
+				new ProductDTO(1L, "PC Gamer", "Computador para jogos", 1200.0, null, null),
+				new ProductDTO(2L, "Smart TV", "Televisão da linha de Eletrônicos", 2190.0, null, null),
+				new ProductDTO(3L, "Cadeira", "Cadeira gamer com apoio de braço", 800.0, null, null)));
+	}
+
+	@Test
+	public void analyzeDeveriaRemoverAcentosEStopwords() {
+		Assertions.assertEquals(List.of("eletronicos", "acao", "braco"), ProductSearchIndex.analyze("Eletrônicos de Ação, braço"));
+	}
+
+	@Test
+	public void searchDeveriaIgnorarAcentosDaBusca() {
+		Page<Long> result = index.search("ELETRÔNICOS televisao", PageRequest.of(0, 10));
+
+		Assertions.assertEquals(List.of(2L), result.getContent());
+	}
+
+	@Test
+	public void searchDeveriaDarMaisPesoAoNomeQueADescricao() {
+		Page<Long> result = index.search("gamer", PageRequest.of(0, 10));
+
+		Assertions.assertEquals(List.of(1L, 3L), result.getContent());
+	}
+
+	@Test
+	public void searchDeveriaCasarPrefixoDaUltimaPalavra() {
+		Page<Long> result = index.search("comp", PageRequest.of(0, 10));
+
+		Assertions.assertEquals(List.of(1L), result.getContent());
+	}
+
+	@Test
+	public void searchDeveriaRetornarVazioQuandoBuscaSoTemStopwords() {
+		Assertions.assertTrue(index.search(" de ", PageRequest.of(0, 10)).isEmpty());
+	}
+
+	@Test
+	public void indexDeveriaSubstituirOsTermosAntigosQuandoProdutoEAlterado() {
+		index.index(1L, "Notebook", "Portátil");
+
+		Assertions.assertEquals(List.of(3L), index.search("gamer", PageRequest.of(0, 10)).getContent());
+		Assertions.assertEquals(List.of(1L), index.search("portatil", PageRequest.of(0, 10)).getContent());
+		Assertions.assertEquals(3, index.size());
+	}
+
+	@Test
+	public void removeDeveriaTirarOProdutoDasBuscas() {
+		index.remove(2L);
+
+		Assertions.assertTrue(index.search("tv", PageRequest.of(0, 10)).isEmpty());
+		Assertions.assertEquals(2, index.size());
+	}
+
+}
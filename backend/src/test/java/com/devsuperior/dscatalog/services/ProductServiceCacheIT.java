@@ -0,0 +1,70 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.devsuperior.dscatalog.dto.ProductBulkDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.tests.Factory;
+
+/** Sem @Transactional: cada chamada ao service abre sua própria sessão, então o cache de primeiro nível não interfere **/
+@SpringBootTest
+public class ProductServiceCacheIT {
+
+	@Autowired
+	private ProductService service;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	private Statistics statistics;
+	private long idExistente;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		idExistente = 2L;
+		statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		emf.getCache().evictAll();
+	}
+
+	@Test
+	public void findByIdDeveriaUsarOCacheDeSegundoNivelNaSegundaBusca() {
+		service.findById(idExistente);
+		long hits = statistics.getSecondLevelCacheHitCount();
+		long statements = statistics.getPrepareStatementCount();
+
+		ProductDTO result = service.findById(idExistente);
+
+		Assertions.assertFalse(result.getCategories().isEmpty());
+		Assertions.assertTrue(statistics.getSecondLevelCacheHitCount() > hits);
+		Assertions.assertEquals(statements, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void bulkDeleteDeveriaManterAsOutrasRegioesDoCacheDeSegundoNivel() {
+		ProductDTO created = service.insert(Factory.createProductDTO());
+		EntityManager em = emf.createEntityManager();
+		em.find(Category.class, 1L);
+		em.close();
+		Assertions.assertTrue(emf.getCache().contains(Category.class, 1L));
+
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setId(List.of(created.getId()));
+		dto.setOperation(ProductBulkDTO.Operation.DELETE);
+		service.bulk(dto);
+
+		Assertions.assertTrue(emf.getCache().contains(Category.class, 1L));
+	}
+
+}
@@ -1,7 +1,18 @@
 package com.devsuperior.dscatalog.services;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,11 +20,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkDTO;
+import com.devsuperior.dscatalog.dto.ProductBulkResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.exceptions.InvalidParameterException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
+import com.devsuperior.dscatalog.tests.Factory;
 
 @SpringBootTest
 @Transactional
@@ -29,6 +52,18 @@ public class ProductServiceIT {
 	@Autowired
 	private ProductRepository repository;
 
+	@Autowired
+	private EntityManager em;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	private CategoryRegistry categoryRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	@BeforeEach
 	void setUp() throws Exception {
 		idExistente = 1L;
@@ -87,4 +122,306 @@ public class ProductServiceIT {
 		Assertions.assertEquals("PC Gamer Alfa", result.getContent().get(2).getName());
 	}
 
+	@Test
+	public void findAllPageDeveriaUsarOTotalDoCacheQuandoPaginaJaFoiContada() {
+		service.findAllPaged(PageRequest.of(0, 10));
+
+		Page<ProductDTO> result = service.findAllPaged(PageRequest.of(1, 10));
+
+		Assertions.assertEquals(countTotalProducts, result.getTotalElements());
+		Assertions.assertEquals(10, result.getNumberOfElements());
+	}
+
+	@Test
+	public void findAllSlicedDeveriaRetornarSliceSemTotal() {
+		Slice<ProductDTO> result = service.findAllSliced(PageRequest.of(2, 10));
+
+		Assertions.assertEquals(5, result.getNumberOfElements());
+		Assertions.assertFalse(result.hasNext());
+	}
+
+	@Test
+	public void findAllPageComCategoriasDeveriaCarregarCategoriasEmUmaConsultaQuandoPaginaTem50Produtos() {
+		List<Product> extra = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			Product product = Factory.createProduct();
+			product.setId(null);
+			extra.add(product);
+		}
+		repository.saveAll(extra);
+		em.flush();
+		em.clear();
+		emf.getCache().evictAll();
+
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Page<ProductDTO> result = service.findAllPaged(PageRequest.of(0, 50), true);
+
+		Assertions.assertEquals(50, result.getNumberOfElements());
+		Assertions.assertTrue(result.getContent().stream().allMatch(x -> !x.getCategories().isEmpty()));
+		/** página + total + categorias da página inteira **/
+		Assertions.assertTrue(statistics.getPrepareStatementCount() <= 3);
+		/** nenhuma coleção carregada de forma lazy, produto por produto **/
+		Assertions.assertEquals(0, statistics.getCollectionFetchCount());
+	}
+
+	@Test
+	public void findAllKeysetDeveriaPercorrerTodosOsProdutosSemRepetirQuandoSortByName() {
+		Set<Long> ids = new HashSet<>();
+		String after = "";
+		String lastName = "";
+		int pages = 0;
+
+		do {
+			CursorPageDTO<ProductDTO> result = service.findAllKeyset(after, PageRequest.of(0, 10, Sort.by("name")));
+			for (ProductDTO dto : result.getContent()) {
+				Assertions.assertTrue(ids.add(dto.getId()));
+				Assertions.assertTrue(lastName.compareTo(dto.getName()) <= 0);
+				lastName = dto.getName();
+			}
+			after = result.getNextCursor();
+			pages++;
+		} while (after != null);
+
+		Assertions.assertEquals(countTotalProducts, ids.size());
+		Assertions.assertEquals(3, pages);
+	}
+
+	@Test
+	public void searchDeveriaRetornarProdutosPorRelevanciaQuandoTermoExiste() {
+		Page<ProductDTO> result = service.search("lord rings", PageRequest.of(0, 10));
+
+		Assertions.assertEquals(1, result.getTotalElements());
+		Assertions.assertEquals("The Lord of the Rings", result.getContent().get(0).getName());
+	}
+
+	@Test
+	public void searchDeveriaCasarPrefixoDaUltimaPalavra() {
+		Page<ProductDTO> result = service.search("pc gam", PageRequest.of(0, 5));
+
+		Assertions.assertEquals(5, result.getNumberOfElements());
+		Assertions.assertTrue(result.getContent().stream().allMatch(x -> x.getName().startsWith("PC Gamer")));
+	}
+
+	@Test
+	public void findAllPageComFiltroDeveriaRetornarProdutosDeQualquerCategoriaQuandoModoOr() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(1L, 2L));
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 10), false);
+
+		Assertions.assertEquals(3, result.getTotalElements());
+		Assertions.assertEquals(List.of(1L, 2L, 5L),
+				result.getContent().stream().map(ProductDTO::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void findAllPageComFiltroDeveriaRetornarSoProdutosDeTodasAsCategoriasQuandoModoAnd() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(1L, 3L));
+		filter.setCategoryMode("and");
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 10), false);
+
+		Assertions.assertEquals(1, result.getTotalElements());
+		Assertions.assertEquals("Smart TV", result.getContent().get(0).getName());
+	}
+
+	@Test
+	public void findAllPageComFiltroDeveriaOrdenarNoBancoQuandoSortByName() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(3L));
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 2, Sort.by("name")), false);
+
+		Assertions.assertEquals(23, result.getTotalElements());
+		Assertions.assertEquals("Macbook Pro", result.getContent().get(0).getName());
+		Assertions.assertEquals("PC Gamer", result.getContent().get(1).getName());
+	}
+
+	@Test
+	public void findAllPageComFiltroDeveriaAplicarCategoriasEPrecoNoBancoQuandoSortByName() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(1L, 3L));
+		filter.setCategoryMode("and");
+		filter.setMaxPrice(3000.0);
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("name")), false);
+
+		Assertions.assertEquals(1, result.getTotalElements());
+		Assertions.assertEquals(List.of("Smart TV"),
+				result.getContent().stream().map(ProductDTO::getName).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void findAllPageComFaixaDePrecoDeveriaRetornarSoProdutosNaFaixaOrdenadosPorPreco() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setMinPrice(1000.0);
+		filter.setMaxPrice(1350.0);
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("price").descending()),
+				false);
+
+		Assertions.assertTrue(result.getContent().stream().allMatch(x -> x.getPrice() >= 1000.0 && x.getPrice() <= 1350.0));
+		Assertions.assertEquals(repository.findAll().stream().filter(x -> x.getPrice() >= 1000.0 && x.getPrice() <= 1350.0)
+				.count(), result.getTotalElements());
+		for (int i = 1; i < result.getNumberOfElements(); i++) {
+			Assertions.assertTrue(result.getContent().get(i - 1).getPrice() >= result.getContent().get(i).getPrice());
+		}
+	}
+
+	@Test
+	public void findAllPageComFaixaDeDataDeveriaCombinarComCategoria() {
+		ProductFilterDTO filter = new ProductFilterDTO();
+		filter.setCategoryId(List.of(2L));
+		filter.setTo(Instant.parse("2020-07-13T23:59:59Z"));
+
+		Page<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 10), false);
+
+		Assertions.assertEquals(1, result.getTotalElements());
+		Assertions.assertEquals("The Lord of the Rings", result.getContent().get(0).getName());
+	}
+
+	@Test
+	public void insertAllDeveriaInserirTodosEmLoteQuandoListaValida() {
+		List<ProductDTO> dtos = new ArrayList<>();
+		for (int i = 0; i < 1200; i++) {
+			dtos.add(Factory.createProductDTO());
+		}
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<ProductDTO> result = service.insertAll(dtos);
+
+		Assertions.assertEquals(1200, result.size());
+		Assertions.assertEquals(1200, result.stream().map(ProductDTO::getId).distinct().count());
+		Assertions.assertEquals(countTotalProducts + 1200, repository.count());
+		Assertions.assertTrue(statistics.getPrepareStatementCount() < 200);
+	}
+
+	@Test
+	public void bulkDeveriaAjustarPrecoDosProdutosDaCategoriaQuandoAdjustPrice() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setCategoryId(List.of(2L));
+		dto.setOperation(ProductBulkDTO.Operation.ADJUST_PRICE);
+		dto.setValue(10.0);
+
+		ProductBulkResultDTO result = service.bulk(dto);
+
+		Assertions.assertEquals(2, result.getAffected());
+		Assertions.assertEquals(99.55, repository.findById(idExistente).get().getPrice(), 0.001);
+	}
+
+	@Test
+	public void bulkDeveriaApagarOsProdutosDaListaQuandoDelete() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setId(List.of(1L, 2L, 2L));
+		dto.setOperation(ProductBulkDTO.Operation.DELETE);
+
+		ProductBulkResultDTO result = service.bulk(dto);
+
+		Assertions.assertEquals(2, result.getAffected());
+		Assertions.assertEquals(countTotalProducts - 2, repository.count());
+	}
+
+	@Test
+	public void bulkDeveriaLancarUnprocessableEntityExceptionQuandoIdNaoExistir() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setId(List.of(1L, idNaoExistente));
+		dto.setOperation(ProductBulkDTO.Operation.DELETE);
+
+		UnprocessableEntityException e = Assertions.assertThrows(UnprocessableEntityException.class,
+				() -> service.bulk(dto));
+
+		Assertions.assertEquals("Produtos não encontrados: [" + idNaoExistente + "]", e.getMessage());
+		Assertions.assertEquals(countTotalProducts, repository.count());
+	}
+
+	@Test
+	public void bulkDeveriaLancarUnprocessableEntityExceptionQuandoIdNaoForPositivo() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setId(List.of(1L, -1L));
+		dto.setOperation(ProductBulkDTO.Operation.SET_PRICE);
+		dto.setValue(10.0);
+
+		Assertions.assertThrows(UnprocessableEntityException.class, () -> service.bulk(dto));
+	}
+
+	@Test
+	public void bulkDeveriaArredondarOPrecoParaDuasCasasQuandoAdjustPrice() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setId(List.of(idExistente));
+		dto.setOperation(ProductBulkDTO.Operation.ADJUST_PRICE);
+		dto.setValue(3.333);
+
+		service.bulk(dto);
+
+		Assertions.assertEquals(93.52, repository.findById(idExistente).get().getPrice());
+	}
+
+	/** O preço muda direto no banco, então os índices em memória ficam com o valor antigo **/
+	@Test
+	public void bulkDeveriaFiltrarPeloBancoQuandoIndiceEstiverDesatualizado() {
+		jdbcTemplate.update("UPDATE tb_product SET price = 5000 WHERE id = ?", idExistente);
+		jdbcTemplate.update("UPDATE tb_product SET price = 50 WHERE id = 2");
+		long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_product WHERE price >= 4000", Long.class);
+
+		ProductBulkDTO delete = new ProductBulkDTO();
+		delete.setMinPrice(4000.0);
+		delete.setOperation(ProductBulkDTO.Operation.DELETE);
+		ProductBulkResultDTO deleted = service.bulk(delete);
+
+		Assertions.assertEquals(expected, deleted.getAffected());
+		Assertions.assertFalse(repository.existsById(idExistente));
+
+		ProductBulkDTO setPrice = new ProductBulkDTO();
+		setPrice.setId(List.of(2L, 3L));
+		setPrice.setMaxPrice(100.0);
+		setPrice.setOperation(ProductBulkDTO.Operation.SET_PRICE);
+		setPrice.setValue(10.0);
+		ProductBulkResultDTO changed = service.bulk(setPrice);
+
+		/** Direto no banco: o cache de segundo nível só é invalidado pelo UPDATE em massa no fim da transação **/
+		Assertions.assertEquals(1, changed.getAffected());
+		Assertions.assertEquals(10.0, jdbcTemplate.queryForObject("SELECT price FROM tb_product WHERE id = 2", Double.class));
+		Assertions.assertEquals(1250.0, jdbcTemplate.queryForObject("SELECT price FROM tb_product WHERE id = 3", Double.class));
+	}
+
+	@Test
+	public void bulkDeveriaLancarInvalidParameterExceptionQuandoSemFiltro() {
+		ProductBulkDTO dto = new ProductBulkDTO();
+		dto.setOperation(ProductBulkDTO.Operation.DELETE);
+
+		Assertions.assertThrows(InvalidParameterException.class, () -> service.bulk(dto));
+	}
+
+	@Test
+	public void insertDeveriaLancarUnprocessableEntityExceptionQuandoCategoriaFoiApagadaPorOutraInstancia() {
+		jdbcTemplate.update("INSERT INTO tb_category (id, name) VALUES (998, 'Apagada')");
+		em.find(Category.class, 998L);
+		em.clear();
+		jdbcTemplate.update("DELETE FROM tb_category WHERE id = 998");
+		categoryRegistry.add(998L);
+
+		ProductDTO dto = Factory.createProductDTO();
+		dto.getCategories().clear();
+		dto.getCategories().add(new CategoryDTO(998L, "Apagada"));
+
+		Assertions.assertThrows(UnprocessableEntityException.class, () -> service.insert(dto));
+		Assertions.assertEquals(List.of(998L), categoryRegistry.unknown(List.of(998L)));
+		emf.getCache().evict(Category.class, 998L);
+	}
+
+	@Test
+	public void updateDeveriaLancarUnprocessableEntityExceptionQuandoCategoriaDoRegistroNaoExistir() {
+		categoryRegistry.add(997L);
+
+		ProductDTO dto = Factory.createProductDTO();
+		dto.getCategories().add(new CategoryDTO(997L, "Inexistente"));
+
+		Assertions.assertThrows(UnprocessableEntityException.class, () -> service.update(idExistente, dto));
+		Assertions.assertEquals(List.of(997L), categoryRegistry.unknown(List.of(997L)));
+	}
+
 }
@@ -2,6 +2,7 @@ package com.devsuperior.dscatalog.services;
 
 
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,7 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -23,6 +25,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
@@ -30,15 +33,18 @@ import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
 import com.devsuperior.dscatalog.services.exceptions.DataBaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.UnprocessableEntityException;
 import com.devsuperior.dscatalog.tests.Factory;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(SpringExtension.class)
 public class ProductServiceTests {
 
 	private Long idExistente;
 	private Long idNaoExistente;
 	private Long idComDependencia;
-	private PageImpl<Product> page;
+	private PageImpl<ProductDTO> page;
 	private Product product;
 	private Category category;
 	ProductDTO productDTO;
@@ -49,6 +55,21 @@ public class ProductServiceTests {
 	@Mock
 	private CategoryRepository categoryRepository;
 	
+	@Spy
+	private PageCountCache countCache = new PageCountCache(new SimpleMeterRegistry(), Duration.ofSeconds(60), 1000);
+
+	@Spy
+	private CategoryRegistry categoryRegistry = new CategoryRegistry();
+
+	@Spy
+	private ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+	@Spy
+	private ProductCategoryIndex categoryIndex = new ProductCategoryIndex();
+
+	@Spy
+	private ProductColumnIndex columnIndex = new ProductColumnIndex(new SimpleMeterRegistry());
+	
 	@SuppressWarnings("deprecation")
 	@BeforeEach
 	void setUp() throws Exception {
@@ -56,7 +77,7 @@ public class ProductServiceTests {
 		idNaoExistente = 2L;
 		idComDependencia = 3L; //Id onde alguma entidad depende dele;
 		product = Factory.createProduct();
-		page = new PageImpl<>(List.of(product));
+		page = new PageImpl<>(List.of(new ProductDTO(product)));
 		category = Factory.createCategory();
 		productDTO = Factory.createProductDTO();
 
@@ -67,8 +88,9 @@ public class ProductServiceTests {
 		
 		Mockito.when(categoryRepository.getOne(idExistente)).thenReturn(category);
 		Mockito.when(categoryRepository.getOne(idNaoExistente)).thenThrow(EntityNotFoundException.class);
+		categoryRegistry.load(List.of(idExistente));
 	
-		Mockito.when(repository.findAll((Pageable)ArgumentMatchers.any())).thenReturn(page);
+		Mockito.when(repository.findAllProjected((Pageable)ArgumentMatchers.any())).thenReturn(page);
 		Mockito.when(repository.save(ArgumentMatchers.any())).thenReturn(product);
 		Mockito.when(repository.findById(idExistente)).thenReturn(Optional.of(product)); //of instancia um optional com product dentro
 		Mockito.when(repository.findById(idNaoExistente)).thenReturn(Optional.empty()); //empty instancia um optional sem nada dentro
@@ -115,11 +137,29 @@ public class ProductServiceTests {
 		Pageable pageable = PageRequest.of(0, 10);
 		Page<ProductDTO> result = service.findAllPaged(pageable);
 		Assertions.assertNotNull(result);
-		Mockito.verify(repository, Mockito.times(1)).findAll(pageable); 
-		//Mockito.times (1) ele verifica se o findAll(pageable) foi chamado 1 vez dentro do findAllPaged do service
+		Mockito.verify(repository, Mockito.times(1)).findAllProjected(pageable); 
+		//Mockito.times (1) ele verifica se o findAllProjected(pageable) foi chamado 1 vez dentro do findAllPaged do service
 	}
 	
 
+	@Test
+	public void updateDeveRetornarUnprocessableEntityExceptionQuandoCategoriaNaoExistir() {
+		productDTO.getCategories().add(new CategoryDTO(idNaoExistente, "Inexistente"));
+
+		Assertions.assertThrows(UnprocessableEntityException.class, () -> {
+			service.update(idExistente, productDTO);
+		});
+		Mockito.verify(categoryRepository, Mockito.times(1)).findIdsByIdIn(List.of(idNaoExistente));
+		Mockito.verify(repository, Mockito.never()).save(ArgumentMatchers.any());
+	}
+
+	@Test
+	public void updateDeveriaReindexarOProdutoQuandoIdExistir() {
+		service.update(idExistente, productDTO);
+
+		Mockito.verify(searchIndex, Mockito.times(1)).index(product.getId(), product.getName(), product.getDescription());
+	}
+
 	@Test
 	public void deleteNaoDeveFazerNadaQuandoIDExistir() {
 		Assertions.assertDoesNotThrow(() -> {
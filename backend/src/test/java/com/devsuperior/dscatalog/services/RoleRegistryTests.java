@@ -0,0 +1,48 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.entities.Role;
+
+public class RoleRegistryTests {
+
+	private RoleRegistry registry;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new RoleRegistry();
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	public void reloadDeveriaCarregarQuandoORegistroNuncaFoiCarregado() {
+		registry.reload(this::roles);
+
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertTrue(registry.findById(1L).isPresent());
+	}
+
+	@Test
+	public void reloadNaoDeveriaLerATabelaDeNovoDentroDoIntervaloMinimo() {
+		registry.load(roles());
+		loads.set(0);
+
+		for (int i = 0; i < 100; i++) {
+			registry.reload(this::roles);
+		}
+
+		Assertions.assertEquals(0, loads.get());
+	}
+
+	private List<Role> roles() {
+		loads.incrementAndGet();
+		return List.of(new Role(1L, "ROLE_OPERATOR"), new Role(2L, "ROLE_ADMIN"));
+	}
+
+}
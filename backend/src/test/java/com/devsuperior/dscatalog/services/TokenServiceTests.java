@@ -0,0 +1,71 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TokenServiceTests {
+
+	private TokenService service;
+	private Instant now;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String secret = Base64.getEncoder().encodeToString(new byte[32]);
+		service = new TokenService(new ObjectMapper(), secret, Duration.ofHours(1));
+		now = Instant.parse("2021-06-01T12:00:00Z");
+	}
+
+	@Test
+	public void verifyDeveriaRetornarClaimsQuandoTokenValido() {
+		String token = service.issue("maria@gmail.com", List.of("ROLE_OPERATOR", "ROLE_ADMIN"), now);
+
+		Optional<TokenService.Claims> claims = service.verify(token, now.plusSeconds(60));
+
+		Assertions.assertTrue(claims.isPresent());
+		Assertions.assertEquals("maria@gmail.com", claims.get().getSubject());
+		Assertions.assertEquals(List.of("ROLE_OPERATOR", "ROLE_ADMIN"), claims.get().getAuthorities());
+	}
+
+	@Test
+	public void verifyDeveriaRetornarVazioQuandoTokenExpirado() {
+		String token = service.issue("maria@gmail.com", List.of("ROLE_ADMIN"), now);
+
+		Assertions.assertTrue(service.verify(token, now.plus(Duration.ofHours(1))).isEmpty());
+	}
+
+	@Test
+	public void verifyDeveriaRetornarVazioQuandoPayloadAlterado() {
+		String token = service.issue("alex@gmail.com", List.of("ROLE_OPERATOR"), now);
+		String[] parts = token.split("\\.");
+		String forged = service.issue("alex@gmail.com", List.of("ROLE_ADMIN"), now).split("\\.")[1];
+
+		Assertions.assertTrue(service.verify(parts[0] + "." + forged + "." + parts[2], now).isEmpty());
+	}
+
+	@Test
+	public void verifyDeveriaRetornarVazioQuandoAssinadoComOutroSegredo() {
+		String otherSecret = Base64.getEncoder().encodeToString("outro-segredo-com-pelo-menos-32-bytes".getBytes());
+		TokenService other = new TokenService(new ObjectMapper(), otherSecret, Duration.ofHours(1));
+
+		String token = other.issue("alex@gmail.com", List.of("ROLE_ADMIN"), now);
+
+		Assertions.assertTrue(service.verify(token, now).isEmpty());
+	}
+
+	@Test
+	public void verifyDeveriaRetornarVazioQuandoTokenMalFormado() {
+		Assertions.assertTrue(service.verify("abc", now).isEmpty());
+		Assertions.assertTrue(service.verify("a.b.c", now).isEmpty());
+		Assertions.assertTrue(service.verify(null, now).isEmpty());
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Quanto custa autenticar uma requisição pelo token (HMAC-SHA256 + leitura do
+ * payload), comparado com o que o filtro fazia antes: buscar o usuário e os
+ * perfis no banco. O tempo por verificação sai no log; o teste só garante que
+ * todas as verificações passaram. Só roda com -P benchmark.
+ **/
+@Tag("benchmark")
+public class TokenVerificationBenchmarkIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TokenVerificationBenchmarkIT.class);
+
+	private static final int WARMUP = 50_000;
+	private static final int ROUNDS = 200_000;
+
+	@Test
+	public void verifyDeveriaAceitarTodosOsTokensValidos() {
+		String secret = Base64.getEncoder().encodeToString(new byte[32]);
+		TokenService service = new TokenService(new ObjectMapper(), secret, Duration.ofHours(1));
+		String token = service.issue("maria@gmail.com", List.of("ROLE_OPERATOR", "ROLE_ADMIN"),
+				Instant.now());
+
+		int valid = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			valid += service.verify(token).isPresent() ? 1 : 0;
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			valid += service.verify(token).isPresent() ? 1 : 0;
+		}
+		long elapsed = System.nanoTime() - start;
+
+		LOG.info("token verify: {} ns/op ({} ops/s per thread)", elapsed / ROUNDS, ROUNDS * 1_000_000_000L / elapsed);
+		Assertions.assertEquals(WARMUP + ROUNDS, valid);
+	}
+
+}
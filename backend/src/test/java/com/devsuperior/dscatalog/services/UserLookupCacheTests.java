@@ -0,0 +1,54 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.devsuperior.dscatalog.entities.User;
+import com.devsuperior.dscatalog.repositories.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UserLookupCacheTests {
+
+	private UserRepository repository;
+	private UserLookupCache cache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		repository = Mockito.mock(UserRepository.class);
+		cache = new UserLookupCache(repository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 1000);
+	}
+
+	@Test
+	public void findByEmailDeveriaReaproveitarOUsuarioGuardado() {
+		Mockito.when(repository.findWithRolesByEmail("maria@gmail.com")).thenReturn(Optional.of(user("hash")));
+
+		cache.findByEmail("maria@gmail.com");
+		cache.findByEmail("maria@gmail.com");
+
+		Mockito.verify(repository, Mockito.times(1)).findWithRolesByEmail("maria@gmail.com");
+	}
+
+	@Test
+	public void findByEmailNaoDeveriaGuardarUsuarioLidoAntesDeUmInvalidate() {
+		/** A senha muda e o invalidate roda enquanto a consulta com o hash antigo ainda está em andamento **/
+		Mockito.when(repository.findWithRolesByEmail("maria@gmail.com")).thenAnswer(invocation -> {
+			cache.invalidate(2L);
+			return Optional.of(user("hash antigo"));
+		}).thenReturn(Optional.of(user("hash novo")));
+
+		cache.findByEmail("maria@gmail.com");
+
+		Assertions.assertEquals("hash novo", cache.findByEmail("maria@gmail.com").get().getPassword());
+	}
+
+	private static User user(String password) {
+		return new User(2L, "Maria", "Green", "maria@gmail.com", password);
+	}
+
+}
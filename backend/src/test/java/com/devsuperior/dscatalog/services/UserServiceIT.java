@@ -0,0 +1,50 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.devsuperior.dscatalog.dto.RoleDTO;
+import com.devsuperior.dscatalog.dto.UserDTO;
+import com.devsuperior.dscatalog.dto.UserInsertDTO;
+
+/** Sem @Transactional: o que interessa é a transação que o próprio service abre **/
+@SpringBootTest
+public class UserServiceIT {
+
+	@Autowired
+	private UserService service;
+
+	@MockBean
+	private PasswordHasher passwordHasher;
+
+	@Test
+	public void insertDeveriaGerarOHashDaSenhaForaDaTransacao() {
+		AtomicBoolean hashedInTransaction = new AtomicBoolean();
+		Mockito.when(passwordHasher.encode(ArgumentMatchers.anyString())).thenAnswer(invocation -> {
+			hashedInTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+			return "hash";
+		});
+		UserInsertDTO dto = new UserInsertDTO();
+		dto.setFirstName("Bob");
+		dto.setLastName("Brown");
+		dto.setEmail("bob@gmail.com");
+		dto.setPassword("123456");
+		dto.getRoles().add(new RoleDTO(1L, "ROLE_OPERATOR"));
+
+		UserDTO result = service.insert(dto);
+
+		Assertions.assertFalse(hashedInTransaction.get());
+		Assertions.assertNotNull(result.getId());
+		Assertions.assertEquals(1, result.getRoles().size());
+		service.delete(result.getId());
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.devsuperior.dscatalog.tests;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+
+import com.devsuperior.dscatalog.services.CategoryServices;
+import com.devsuperior.dscatalog.services.PageCountCache;
+import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.UserService;
+
+/**
+ * Orçamento de consultas por cenário: quantos comandos SQL (e, opcionalmente,
+ * quantas linhas lidas do banco) uma chamada pode custar. Os comandos vêm das
+ * estatísticas do Hibernate (generate_statistics) e as linhas do RowCounter,
+ * então vale tanto para MockMvc quanto para chamadas diretas ao service.
+ *
+ * Antes de cada cenário o cache de segundo nível e os totais do PageCountCache
+ * são esvaziados: o orçamento é o do pior caso (cache frio), e não depende da
+ * ordem em que os testes rodam. Um N+1 novo faz o número crescer com o tamanho
+ * da página e estoura o orçamento.
+ **/
+public class QueryBudget {
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final PageCountCache countCache;
+	private final RowCounter rowCounter;
+	private final Statistics statistics;
+
+	public QueryBudget(EntityManagerFactory entityManagerFactory, PageCountCache countCache, RowCounter rowCounter) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.countCache = countCache;
+		this.rowCounter = rowCounter;
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	public void run(String scenario, long maxStatements, ThrowingRunnable call) throws Exception {
+		run(scenario, maxStatements, Long.MAX_VALUE, call);
+	}
+
+	public void run(String scenario, long maxStatements, long maxRows, ThrowingRunnable call) throws Exception {
+		entityManagerFactory.getCache().evictAll();
+		countCache.invalidate(ProductService.COUNT_REGION);
+		countCache.invalidate(CategoryServices.COUNT_REGION);
+		countCache.invalidate(UserService.COUNT_REGION);
+		statistics.clear();
+		rowCounter.clear();
+
+		call.run();
+
+		long statements = statistics.getPrepareStatementCount();
+		long rows = rowCounter.getRows();
+		Assertions.assertTrue(statements <= maxStatements, () -> scenario + ": " + statements
+				+ " comandos SQL, orçamento " + maxStatements);
+		Assertions.assertTrue(rows <= maxRows, () -> scenario + ": " + rows + " linhas lidas, orçamento " + maxRows);
+	}
+
+	@FunctionalInterface
+	public interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+
+}
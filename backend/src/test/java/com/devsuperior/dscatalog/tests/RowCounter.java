@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.tests;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Conta as linhas que a aplicação leu do banco: cada ResultSet.next() que
+ * devolveu true, em qualquer statement de qualquer conexão do DataSource. Entra
+ * no contexto com @Import(RowCounter.Config.class), que embrulha o DataSource;
+ * os proxies dinâmicos custam caro, então é só para testes.
+ **/
+public class RowCounter {
+
+	private final AtomicLong rows = new AtomicLong();
+
+	public long getRows() {
+		return rows.get();
+	}
+
+	public void clear() {
+		rows.set(0);
+	}
+
+	private DataSource wrap(DataSource target) {
+		return new DelegatingDataSource(target) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return proxy(obtainTargetDataSource().getConnection(), Connection.class);
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				return proxy(obtainTargetDataSource().getConnection(username, password), Connection.class);
+			}
+		};
+	}
+
+	/** Statements saem da conexão embrulhados, ResultSets saem dos statements embrulhados, e o next conta **/
+	private <T> T proxy(Object target, Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(RowCounter.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(target, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					Class<?> returned = method.getReturnType();
+					if (result != null && returned.isInterface() && Statement.class.isAssignableFrom(returned)) {
+						return proxy(result, returned);
+					}
+					if (result != null && returned == ResultSet.class && type != ResultSet.class) {
+						return proxy(result, ResultSet.class);
+					}
+					if (type == ResultSet.class && "next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+						rows.incrementAndGet();
+					}
+					return result;
+				}));
+	}
+
+	@TestConfiguration
+	public static class Config {
+
+		@Bean
+		public static RowCounter rowCounter() {
+			return new RowCounter();
+		}
+
+		@Bean
+		public static BeanPostProcessor rowCountingDataSourcePostProcessor(RowCounter rowCounter) {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource ? rowCounter.wrap((DataSource) bean) : bean;
+				}
+			};
+		}
+
+	}
+
+}